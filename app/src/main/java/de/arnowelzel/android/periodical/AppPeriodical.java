@@ -19,11 +19,25 @@
 package de.arnowelzel.android.periodical;
 
 import android.app.Application;
+import android.content.Context;
 import android.content.SharedPreferences;
 
 import com.yariksoffice.lingver.Lingver;
 
 public class AppPeriodical extends Application {
+    /**
+     * Database shared by all activities
+     */
+    private PeriodicalDatabase database = null;
+    /**
+     * Number of users of the shared database
+     */
+    private int databaseReferences = 0;
+    /**
+     * Drawing resources shared by all calendar cells
+     */
+    private CalendarCellResources cellResources = null;
+
     @Override
     public void onCreate() {
         super.onCreate();
@@ -45,4 +59,105 @@ public class AppPeriodical extends Application {
             Lingver.getInstance().setLocale(this, locale);
         }
     }
+
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+
+        // Drawing resources can be created again when the calendar is visible next time
+        if (level >= TRIM_MEMORY_UI_HIDDEN) {
+            releaseCellResources();
+        }
+
+        // The process is likely to be killed soon, so the database is not needed any longer
+        if (level >= TRIM_MEMORY_COMPLETE) {
+            closeDatabase();
+        }
+    }
+
+    @Override
+    public void onTerminate() {
+        closeDatabase();
+
+        super.onTerminate();
+    }
+
+    /**
+     * Get the drawing resources shared by all calendar cells
+     *
+     * <br><br><i>The resources are created again if the screen density changed.</i>
+     *
+     * @param context Any context of the application
+     * @return The shared resources
+     */
+    static CalendarCellResources getCellResources(Context context) {
+        Context application = context.getApplicationContext();
+        if (!(application instanceof AppPeriodical)) {
+            // Layout preview in the IDE
+            return new CalendarCellResources(context);
+        }
+        return ((AppPeriodical) application).getCellResources();
+    }
+
+    private synchronized CalendarCellResources getCellResources() {
+        int densityDpi = getResources().getDisplayMetrics().densityDpi;
+        if (cellResources == null || cellResources.densityDpi != densityDpi) {
+            cellResources = new CalendarCellResources(this);
+        }
+        return cellResources;
+    }
+
+    private synchronized void releaseCellResources() {
+        if (cellResources != null) {
+            cellResources.release();
+        }
+    }
+
+    /**
+     * Get the database shared by all activities
+     *
+     * <br><br><i>The database is opened by the first call and stays open as long as the
+     * process is running, so the last calculation result is kept when an activity is created
+     * again, for example after the screen was rotated. Every call must be followed by a call
+     * of releaseDatabase() when the database is no longer used.</i>
+     *
+     * @param context Any context of the application
+     * @return The shared database
+     */
+    static PeriodicalDatabase acquireDatabase(Context context) {
+        return ((AppPeriodical) context.getApplicationContext()).acquireDatabase();
+    }
+
+    /**
+     * Release the database shared by all activities
+     *
+     * <br><br><i>The database is not closed when the last user released it, this is only
+     * done when the system asks to free memory and there is no user left.</i>
+     *
+     * @param context Any context of the application
+     */
+    static void releaseDatabase(Context context) {
+        ((AppPeriodical) context.getApplicationContext()).releaseDatabase();
+    }
+
+    private synchronized PeriodicalDatabase acquireDatabase() {
+        if (database == null) {
+            database = new PeriodicalDatabase(this);
+        }
+        databaseReferences++;
+        return database;
+    }
+
+    private synchronized void releaseDatabase() {
+        if (databaseReferences > 0) {
+            databaseReferences--;
+        }
+    }
+
+    private synchronized void closeDatabase() {
+        if (database != null && databaseReferences == 0) {
+            database.close();
+            database = null;
+        }
+    }
 }
@@ -0,0 +1,148 @@
+/*
+ * Periodical calculation snapshot class
+ * Copyright (C) 2012-2025 Arno Welzel
+ *
+ * This code is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.arnowelzel.android.periodical;
+
+import java.time.Year;
+import java.util.GregorianCalendar;
+import java.util.HashMap;
+
+/**
+ * Result of a calculation which can be used by the UI
+ *
+ * <br><br><i>A snapshot is never changed after it was created, so it can be passed from the
+ * background thread doing the calculation to the UI without further synchronization.</i>
+ */
+class CalculationSnapshot {
+    /**
+     * Snapshot used before the first calculation is finished
+     */
+    final static CalculationSnapshot EMPTY = new CalculationSnapshot(
+            0, Integer.MIN_VALUE, new DayStore(), CyclePrediction.NONE, 0, 0, 28, 28);
+
+    /**
+     * Number of the calculation which created this snapshot
+     */
+    final int version;
+    /**
+     * Day after which entries may differ from the snapshot with the previous version
+     */
+    final int changedAfter;
+
+    /**
+     * Number of cycles
+     */
+    final int cycleCount;
+    /**
+     * Calculated average cycle length
+     */
+    final int cycleAverage;
+    /**
+     * Calculated longest cycle length
+     */
+    final int cycleLongest;
+    /**
+     * Calculated shortest cycle length
+     */
+    final int cycleShortest;
+
+    /**
+     * Index of the calculated day entries by date
+     */
+    private final DayStore dayStore;
+    /**
+     * Prediction of future cycles
+     */
+    private final CyclePrediction prediction;
+    /**
+     * Entry types of all days of a year by year, created on demand
+     */
+    private final HashMap<Integer, byte[]> yearIndexes = new HashMap<>();
+
+    /**
+     * Construct a new snapshot
+     *
+     * @param version       Number of the calculation
+     * @param changedAfter  Day after which entries differ from the previous version
+     * @param dayStore      Index of the entries, must not be changed afterwards
+     * @param prediction    Prediction of future cycles
+     * @param cycleCount    Number of cycles
+     * @param cycleAverage  Average cycle length
+     * @param cycleLongest  Longest cycle length
+     * @param cycleShortest Shortest cycle length
+     */
+    CalculationSnapshot(int version, int changedAfter, DayStore dayStore,
+                        CyclePrediction prediction, int cycleCount,
+                        int cycleAverage, int cycleLongest, int cycleShortest) {
+        this.version = version;
+        this.changedAfter = changedAfter;
+        this.dayStore = dayStore;
+        this.prediction = prediction;
+        this.cycleCount = cycleCount;
+        this.cycleAverage = cycleAverage;
+        this.cycleLongest = cycleLongest;
+        this.cycleShortest = cycleShortest;
+    }
+
+    /**
+     * Get entry type for a specific day
+     *
+     * @param date Date of the entry
+     */
+    int getEntryType(GregorianCalendar date) {
+        return prediction.getType(dayStore, DayStore.epochDay(date));
+    }
+
+    /**
+     * Get entry for a specific day
+     *
+     * <br><br><i>The entry is created on demand from the calculated values or the
+     * prediction.</i>
+     *
+     * @param date Date of the entry
+     */
+    DayEntry getEntry(GregorianCalendar date) {
+        return prediction.getEntry(dayStore, DayStore.epochDay(date));
+    }
+
+    /**
+     * Get entry types of all days of a year
+     *
+     * <br><br><i>The types are copied from the calculated entries at once and only the days
+     * without an entry are filled from the prediction. The result is kept, so every year is only
+     * created once per snapshot. The array must not be changed by the caller.</i>
+     *
+     * @param year Year
+     * @return Entry types indexed by day of year - 1
+     */
+    synchronized byte[] getYearIndex(int year) {
+        byte[] index = yearIndexes.get(year);
+        if (index == null) {
+            int firstDay = DayStore.epochDay(year, 1, 1);
+            index = new byte[Year.of(year).length()];
+            dayStore.getTypes(firstDay, index);
+            for (int day = 0; day < index.length; day++) {
+                if (index[day] == DayEntry.EMPTY) {
+                    index[day] = (byte) prediction.getType(firstDay + day);
+                }
+            }
+            yearIndexes.put(year, index);
+        }
+        return index;
+    }
+}
@@ -18,58 +18,53 @@
 
 package de.arnowelzel.android.periodical;
 
-import android.annotation.SuppressLint;
-import android.text.format.DateUtils;
-
-import de.arnowelzel.android.periodical.PeriodicalDatabase.DayEntry;
-
 import android.content.Context;
-import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.graphics.Canvas;
-import android.graphics.Color;
 import android.graphics.LinearGradient;
 import android.graphics.Paint;
 import android.graphics.Paint.Align;
 import android.graphics.Paint.Style;
 import android.graphics.Rect;
 import android.graphics.RectF;
-import android.util.AttributeSet;
 import android.util.DisplayMetrics;
 import android.util.TypedValue;
-import android.widget.Button;
-
-import androidx.core.content.ContextCompat;
 
 /**
- * Custom button class to display the calendar cells
+ * Single day of the calendar, drawn by the month grid
+ *
+ * <br><br><i>Everything which depends on the size or the content of the cell is calculated
+ * when it changes, so drawing does not create any objects and only uses paints which are
+ * already set up.</i>
  */
-@SuppressLint("AppCompatCustomView")
-public class CalendarCell extends Button {
+class CalendarCell {
     /**
      * flag for "is current day"
      */
     private boolean isCurrent;
     /**
-     * entry type as in database
+     * flag for "is pressed"
      */
-    private int type;
+    private boolean isPressed;
     /**
-     * displayed day of month (1-31)
+     * flag for "has keyboard focus"
      */
-    private int day;
+    private boolean isFocused;
     /**
-     * month (1-12)
+     * entry type as in database
      */
-    private int month;
+    private int type;
     /**
-     * year including century
+     * displayed day of month
      */
-    private int year;
+    private String label;
     /**
      * day of cycle (1-n, 0 to hide)
      */
     private int dayofcycle;
+    /**
+     * displayed day of cycle, null to hide
+     */
+    private String labelCycle;
     /**
      * intensity during period (1-4)
      */
@@ -84,9 +79,13 @@ public class CalendarCell extends Button {
     private boolean notes;
 
     /**
-     * Display metrics
+     * Screen density
+     */
+    private final float density;
+    /**
+     * Radius of the rounded corners
      */
-    private final DisplayMetrics metrics;
+    private final float radius;
     /**
      * Rectangle of the cell canvas
      */
@@ -96,21 +95,29 @@ public class CalendarCell extends Button {
      */
     private final Paint paintLabel;
     /**
-     * Paint for the intensity markers
+     * Paint for the day of cycle
      */
-    private final Paint paintIntensity;
+    private final Paint paintCycle;
     /**
      * Background paint for the cell
      */
     private final Paint paintBackground;
+    /**
+     * Paint for the cell if it is pressed
+     */
+    private final Paint paintPressed;
     /**
      * Paint for the cell if it focused
      */
     private final Paint paintFocus;
     /**
-     * Paint for the "is current day" oval marker
+     * Paint for the outer line of the "is current day" oval marker
+     */
+    private final Paint paintOvalOuter;
+    /**
+     * Paint for the inner line of the "is current day" oval marker
      */
-    private final Paint paintOval;
+    private final Paint paintOvalInner;
     /**
      * First rectangle for the "is current day" oval marker
      */
@@ -120,432 +127,354 @@ public class CalendarCell extends Button {
      */
     private final RectF rectOval2;
     /**
-     * Rectangle for the label (day of month)
+     * Bounds of the label (day of month)
      */
     private final Rect rectLabel;
     /**
-     * Gradient for entries of type "confirmed period"
-     */
-    private LinearGradient gradientPeriodConfirmed;
-    /**
-     * Gradient for entries of type "predicted period"
-     */
-    private LinearGradient gradientPeriodPredicted;
-    /**
-     * Gradient for entries of type "predicted fertility" and "ovulation"
-     */
-    private LinearGradient gradientFertilityPredicted;
-    /**
-     * Gradient for entries of type "predicted fertility standard"
+     * Bounds of the day of cycle
      */
-    private final LinearGradient gradientFertilityStandardPredicted;
+    private final Rect rectCycle;
     /**
-     * Gradient for entries of type "predicted fertility in the future" and "ovulation in the future
+     * Position of the label (day of month)
      */
-    private LinearGradient gradientFertilityFuture;
+    private float labelX, labelY;
     /**
-     * Gradient for entries of type "predicted fertility standard in the future"
+     * Position of the day of cycle
      */
-    private final LinearGradient gradientFertilityStandardFuture;
+    private float cycleX, cycleY;
     /**
-     * Gradient for entries of type "infertile day predicted"
+     * Gradients for the current size of the cell
      */
-    private LinearGradient gradientInfertilePredicted;
+    private LinearGradient[] gradients;
     /**
-     * Gradient for entries of type "infertile day predicted in the future"
+     * Rectangle for the period start and ovulation overlays
      */
-    private LinearGradient gradientInfertileFuture;
+    private final Rect rectOverlayType;
     /**
-     * Gradient for empty entries
+     * Rectangle for the intercourse overlay
      */
-    private final LinearGradient gradientEmpty;
+    private final Rect rectOverlayIntercourse;
     /**
-     * Rectangle for overlays
+     * Rectangle for the notes overlay
      */
-    private final Rect rectOverlay;
+    private final Rect rectOverlayNotes;
     /**
-     * Bitmap for entries of type "period"  and "predicted period"
+     * Horizontal positions of the intensity markers
      */
-    private final Bitmap bitmapPeriod;
+    private final float[] intensityX;
     /**
-     * Bitmap for entries of type "ovulation"
+     * Vertical position and radius of the intensity markers
      */
-    private final Bitmap bitmapOvulation;
+    private final float intensityY, intensityRadius;
     /**
-     * Bitmap for entries of type "ovulation in the future"
+     * Bitmap for the entry type, -1 if none
      */
-    private final Bitmap bitmapOvulationFuture;
+    private int bitmapType;
     /**
-     * Bitmap for entries with flag "intercourse"
+     * Color of the labels, depending on type and state
      */
-    private final Bitmap bitmapIntercourse;
+    private int colorLabel;
     /**
-     * Bitmap for entries with flag "intercourse" (black variant)
+     * Drawing resources shared by all cells
      */
-    private final Bitmap bitmapIntercourseBlack;
-    /**
-     * Bitmap for entries with flag "notes"
-     */
-    private final Bitmap bitmapNotes;
-    /**
-     * Bitmap for entries with flag "notes" (black variant)
-     */
-    private final Bitmap bitmapNotesBlack;
-    /**
-     * Paint for bitmaps
-     */
-    private final Paint paintBitmap;
+    private final CalendarCellResources resources;
 
     /**
      * Colors
      */
-    int colorPeriodConfirmed = ContextCompat.getColor(this.getContext(), R.color.colorPeriodConfirmed);
-    int colorPeriodPredicted = ContextCompat.getColor(this.getContext(), R.color.colorPeriodPredicted);
-    int colorFertilityPredicted = ContextCompat.getColor(this.getContext(), R.color.colorFertilityPredicted);
-    int colorFertilityStandardPredicted = ContextCompat.getColor(this.getContext(), R.color.colorFertilityStandardPredicted);
-    int colorFertilityFuture = ContextCompat.getColor(this.getContext(), R.color.colorFertilityFuture);
-    int colorFertilityStandardFuture = ContextCompat.getColor(this.getContext(), R.color.colorFertilityStandardFuture);
-    int colorInfertilePredicted = ContextCompat.getColor(this.getContext(), R.color.colorInfertilePredicted);
-    int colorInfertileFuture = ContextCompat.getColor(this.getContext(), R.color.colorInfertileFuture);
-    int colorEmpty = ContextCompat.getColor(this.getContext(), R.color.colorEmpty);
-    int colorBlack = ContextCompat.getColor(this.getContext(), R.color.colorBlack);
-    int colorWhite = ContextCompat.getColor(this.getContext(), R.color.colorWhite);
-    int colorFocus = ContextCompat.getColor(this.getContext(), R.color.colorFocus);
-    int colorOpacity = ContextCompat.getColor(this.getContext(), R.color.colorOpacity);
+    final int colorFocus;
+    final int colorWhite;
+    final int colorOpacity;
 
     /**
      * Constructor
      *
      * @param context Application context
-     * @param attrs   Resource attributes
      */
-    public CalendarCell(Context context, AttributeSet attrs) {
-        super(context, attrs);
-
+    CalendarCell(Context context) {
         type = DayEntry.EMPTY;
-        day = 1;
-        month = 1;
-        year = 1;
+        label = "";
         intercourse = false;
 
-        //noinspection ConstantConditions
-        metrics = getContext().getResources().getDisplayMetrics();
+        DisplayMetrics metrics = context.getResources().getDisplayMetrics();
+        density = metrics.density;
+        radius = 3 * density;
 
         // Get current size of the canvas
         rectCanvas = new RectF();
 
+        // Shared resources
+        resources = AppPeriodical.getCellResources(context);
+        colorFocus = resources.colorFocus;
+        colorWhite = resources.colorWhite;
+        colorOpacity = resources.colorOpacity;
+        gradients = resources.getGradients(0, 0);
+
         // Create resources needed for drawing
         paintLabel = new Paint();
         paintLabel.setAntiAlias(true);
         paintLabel.setSubpixelText(true);
-        paintLabel.setColor(Color.BLACK);
         paintLabel.setTextAlign(Align.LEFT);
-        paintIntensity = new Paint();
-        paintIntensity.setStyle(Style.FILL);
-        paintIntensity.setColor(colorWhite);
+        paintLabel.setTextSize(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 16, metrics));
+        paintCycle = new Paint(paintLabel);
+        paintCycle.setTextSize(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 12, metrics));
         paintBackground = new Paint();
-        paintOval = new Paint();
+        paintBackground.setDither(true);
+        paintBackground.setStyle(Style.FILL);
+        paintBackground.setAntiAlias(true);
+        paintPressed = new Paint();
+        paintPressed.setAntiAlias(true);
+        paintPressed.setStyle(Style.FILL);
+        paintPressed.setColor(colorFocus);
         paintFocus = new Paint();
         paintFocus.setAntiAlias(true);
+        paintFocus.setStyle(Style.STROKE);
+        paintFocus.setStrokeWidth(4 * density);
+        paintFocus.setColor(colorFocus);
+        paintOvalOuter = new Paint();
+        paintOvalOuter.setAntiAlias(true);
+        paintOvalOuter.setStyle(Style.STROKE);
+        paintOvalOuter.setStrokeWidth(3 * density);
+        paintOvalOuter.setColor(colorOpacity);
+        paintOvalInner = new Paint(paintOvalOuter);
+        paintOvalInner.setStrokeWidth(2 * density);
+        paintOvalInner.setColor(colorWhite);
         rectOval1 = new RectF();
         rectOval2 = new RectF();
         rectLabel = new Rect();
-        gradientPeriodConfirmed = makeCellGradient(colorPeriodConfirmed, colorPeriodConfirmed);
-        gradientPeriodPredicted = makeCellGradient(colorPeriodPredicted, colorPeriodPredicted);
-        gradientFertilityPredicted = makeCellGradient(colorFertilityPredicted, colorFertilityPredicted);
-        gradientFertilityStandardPredicted = makeCellGradient(colorFertilityStandardPredicted, colorFertilityStandardPredicted);
-        gradientFertilityFuture = makeCellGradient(colorFertilityFuture, colorFertilityFuture);
-        gradientFertilityStandardFuture = makeCellGradient(colorFertilityStandardFuture, colorFertilityStandardFuture);
-        gradientInfertilePredicted = makeCellGradient(colorInfertilePredicted, colorInfertilePredicted);
-        gradientInfertileFuture = makeCellGradient(colorInfertileFuture, colorInfertileFuture);
-        gradientEmpty = makeCellGradient(colorEmpty, colorEmpty);
+        rectCycle = new Rect();
 
         // Overlays
-        rectOverlay = new Rect();
-        paintBitmap = new Paint();
-        paintBitmap.setStyle(Style.FILL);
-        paintBitmap.setFilterBitmap(true);
-        bitmapPeriod = BitmapFactory.decodeResource(getResources(),
-                R.drawable.ic_start);
-        bitmapOvulation = BitmapFactory.decodeResource(getResources(),
-                R.drawable.ic_ovulation);
-        bitmapOvulationFuture = BitmapFactory.decodeResource(getResources(),
-                R.drawable.ic_ovulation_predicted);
-        bitmapIntercourse = BitmapFactory.decodeResource(getResources(),
-                R.drawable.ic_intercourse);
-        bitmapIntercourseBlack = BitmapFactory.decodeResource(getResources(),
-                R.drawable.ic_intercourse_black);
-        bitmapNotes = BitmapFactory.decodeResource(getResources(),
-                R.drawable.ic_notes);
-        bitmapNotesBlack = BitmapFactory.decodeResource(getResources(),
-                R.drawable.ic_notes_black);
+        rectOverlayType = new Rect();
+        rectOverlayIntercourse = new Rect();
+        rectOverlayNotes = new Rect();
+        intensityX = new float[4];
+        for (int i = 0; i < intensityX.length; i++) {
+            intensityX[i] = (6 + i * 6) * density;
+        }
+        intensityY = 6 * density;
+        intensityRadius = 2 * density;
+
+        updateType();
     }
 
     /**
      * Handle size changes to adapt size specific elements
      *
-     * @param w    Current width
-     * @param h    Current height
-     * @param oldw Old width
-     * @param oldh Old height
+     * @param w Current width
+     * @param h Current height
      */
-    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
-        super.onSizeChanged(w, h, oldw, oldh);
+    void setSize(int w, int h) {
         rectCanvas.set(0, 0, w, h);
-        gradientPeriodConfirmed = makeCellGradient(colorPeriodConfirmed, colorPeriodConfirmed);
-        gradientPeriodPredicted = makeCellGradient(colorPeriodPredicted, colorPeriodPredicted);
-        gradientFertilityPredicted = makeCellGradient(colorFertilityPredicted, colorFertilityPredicted);
-        gradientFertilityFuture = makeCellGradient(colorFertilityFuture, colorFertilityFuture);
-        gradientInfertilePredicted = makeCellGradient(colorInfertilePredicted, colorInfertilePredicted);
-        gradientInfertileFuture = makeCellGradient(colorInfertileFuture, colorInfertileFuture);
+        gradients = resources.getGradients(w, h);
+        paintBackground.setShader(gradients[getGradient()]);
+
+        // Adjust overlay size depending on orientation
+        int overlaysize = 18;
+        if (w > h) {
+            overlaysize = 14;
+        }
+        rectOverlayType.set((int) (4 * density),
+                h - (int) ((2 + overlaysize) * density),
+                (int) ((overlaysize + 2) * density),
+                h - (int) (4 * density));
+        rectOverlayIntercourse.set(w - (int) (overlaysize * density),
+                (int) (4 * density),
+                w - (int) (4 * density),
+                (int) (overlaysize * density));
+        rectOverlayNotes.set((int) ((float) w / 2 - (overlaysize * density) / 2),
+                h - (int) ((2 + overlaysize) * density),
+                (int) ((float) w / 2 + (overlaysize * density) / 2),
+                h - (int) (4 * density));
+
+        // Oval marker for the current day
+        rectOval1.set(10 * density, 4 * density,
+                rectCanvas.right - 4 * density, rectCanvas.bottom - 4 * density);
+        rectOval2.set(rectOval1.left - 6 * density, rectOval1.top - 1,
+                rectOval1.right, rectOval1.bottom);
+
+        // Center oval rectangle as a square
+        float delta = (rectOval1.height() - rectOval1.width()) / 2;
+        if (delta > 0) {
+            rectOval1.top += delta;
+            rectOval1.bottom -= delta;
+            rectOval2.top += delta;
+            rectOval2.bottom -= delta;
+        } else if (delta < 0) {
+            rectOval1.left -= delta;
+            rectOval1.right += delta;
+            rectOval2.left -= delta;
+            rectOval2.right += delta;
+        }
+
+        updateLabelPosition();
+        updateCyclePosition();
     }
 
     /**
      * Custom draw
      *
+     * <br><br><i>The cell is drawn at the origin of the canvas.</i>
+     *
      * @param canvas The canvas to draw on
      */
-    @SuppressLint("DefaultLocale")
-    protected void onDraw(Canvas canvas) {
-        LinearGradient gradient = gradientEmpty;
-        int colorLabel = colorWhite;
-        String label;
-
-        // Adjust overlay size depending on orientation
-        int overlaysize = 18;
-        if (rectCanvas.width() > rectCanvas.height()) {
-            overlaysize = 14;
-        }
-
+    void draw(Canvas canvas) {
         // Draw background, depending on state
-        if (isPressed()) {
+        if (isPressed) {
             // If cell is pressed, then fill with solid color
-            paintFocus.setStyle(Style.FILL);
-            paintFocus.setColor(colorFocus);
-            canvas.drawRoundRect(rectCanvas, 3 * metrics.density, 3 * metrics.density, paintFocus);
-            colorLabel = colorOpacity;
+            canvas.drawRoundRect(rectCanvas, radius, radius, paintPressed);
         } else {
             // normal state (or focused), then draw color
             // depending on entry type
+            canvas.drawRoundRect(rectCanvas, radius, radius, paintBackground);
 
-            switch (type) {
-                case DayEntry.PERIOD_START: // Start of period
-                case DayEntry.PERIOD_CONFIRMED: // Confirmed period day
-                    gradient = gradientPeriodConfirmed;
-                    colorLabel = colorWhite;
-                    break;
-                case DayEntry.PERIOD_PREDICTED: // Predicted period day
-                    gradient = gradientPeriodPredicted;
-                    colorLabel = colorOpacity;
-                    break;
-                case DayEntry.FERTILITY_PREDICTED: // Calculated fertile day
-                case DayEntry.OVULATION_PREDICTED: // Calculated day of ovulation
-                    gradient = gradientFertilityPredicted;
-                    colorLabel = colorWhite;
-                    break;
-                case DayEntry.FERTILITY_FUTURE: // Calculated fertile day in the future
-                case DayEntry.OVULATION_FUTURE: // Calculated day of ovulation in the future
-                    gradient = gradientFertilityFuture;
-                    colorLabel = colorOpacity;
-                    break;
-                case DayEntry.FERTILITY_STANDARD_PREDICTED: // Calculated fertile standard day
-                    gradient = gradientFertilityStandardPredicted;
-                    colorLabel = colorWhite;
-                    break;
-                case DayEntry.FERTILITY_STANDARD_FUTURE: // Calculated fertile day in the future
-                    gradient = gradientFertilityStandardFuture;
-                    colorLabel = colorOpacity;
-                    break;
-                case DayEntry.INFERTILE_PREDICTED:        // Calculated infertile day
-                    gradient = gradientInfertilePredicted;
-                    colorLabel = colorOpacity;
-                    break;
-                case DayEntry.INFERTILE_FUTURE: // Calculated infertile day in the future
-                    gradient = gradientInfertileFuture;
-                    colorLabel = colorOpacity;
-                    break;
-            }
-
-            // Draw background
-            paintBackground.setDither(true);
-            paintBackground.setShader(gradient);
-            paintBackground.setStyle(Style.FILL);
-            paintBackground.setAntiAlias(true);
-
-            canvas.drawRoundRect(rectCanvas, 3 * metrics.density, 3 * metrics.density, paintBackground);
-
-            // Draw period start indicator
-            rectOverlay.set((int) (4 * metrics.density),
-                    (int) rectCanvas.height() - (int) ((2 + overlaysize) * metrics.density),
-                    (int) ((overlaysize + 2) * metrics.density),
-                    (int) rectCanvas.height() - (int) (4 * metrics.density));
-            if (type == DayEntry.PERIOD_START) {
-                canvas.drawBitmap(bitmapPeriod, null, rectOverlay, paintBitmap);
-            }
-
-            // Draw ovulation indicator
-            if (type == DayEntry.OVULATION_PREDICTED) {
-                canvas.drawBitmap(bitmapOvulation, null, rectOverlay, paintBitmap);
-            }
-            if (type == DayEntry.OVULATION_FUTURE) {
-                canvas.drawBitmap(bitmapOvulationFuture, null, rectOverlay, paintBitmap);
+            // Draw period start or ovulation indicator
+            if (bitmapType >= 0) {
+                canvas.drawBitmap(resources.getBitmap(bitmapType), null, rectOverlayType, resources.paintBitmap);
             }
 
             // Draw intensity indicator
             if (type == DayEntry.PERIOD_START || type == DayEntry.PERIOD_CONFIRMED) {
-                for (int i = 0; i < intensity && i < 4; i++) {
-                    canvas.drawCircle((6 + i * 6) * metrics.density, 6 * metrics.density,
-                            2 * metrics.density, paintIntensity);
+                for (int i = 0; i < intensity && i < intensityX.length; i++) {
+                    canvas.drawCircle(intensityX[i], intensityY, intensityRadius, resources.paintIntensity);
                 }
             }
 
             // Draw intercourse indicator
-            rectOverlay.set((int) rectCanvas.width() - (int) (overlaysize * metrics.density),
-                    (int) (4 * metrics.density),
-                    (int) rectCanvas.width() - (int) (4 * metrics.density),
-                    (int) (overlaysize * metrics.density));
             if (intercourse) {
-                if (colorLabel == colorWhite) {
-                    canvas.drawBitmap(bitmapIntercourse, null, rectOverlay, paintBitmap);
-                } else {
-                    canvas.drawBitmap(bitmapIntercourseBlack, null, rectOverlay, paintBitmap);
-                }
+                canvas.drawBitmap(resources.getBitmap(colorLabel == colorWhite
+                                ? CalendarCellResources.BITMAP_INTERCOURSE
+                                : CalendarCellResources.BITMAP_INTERCOURSE_BLACK),
+                        null, rectOverlayIntercourse, resources.paintBitmap);
             }
 
             // Draw notes indicator
-            rectOverlay.set((int) (rectCanvas.width() / 2 - (overlaysize * metrics.density) / 2),
-                    (int) rectCanvas.height() - (int) ((2 + overlaysize) * metrics.density),
-                    (int) (rectCanvas.width() / 2 + (overlaysize * metrics.density) / 2),
-                    (int) rectCanvas.height() - (int) (4 * metrics.density));
             if (notes) {
-                if (colorLabel == colorWhite) {
-                    canvas.drawBitmap(bitmapNotes, null, rectOverlay, paintBitmap);
-                } else {
-                    canvas.drawBitmap(bitmapNotesBlack, null, rectOverlay, paintBitmap);
-                }
+                canvas.drawBitmap(resources.getBitmap(colorLabel == colorWhite
+                                ? CalendarCellResources.BITMAP_NOTES
+                                : CalendarCellResources.BITMAP_NOTES_BLACK),
+                        null, rectOverlayNotes, resources.paintBitmap);
             }
         }
 
         // Draw main label
-        label = getText().toString();
-        paintLabel.setTextSize(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 16, metrics));
-        paintLabel.setColor(colorLabel);
-        paintLabel.getTextBounds(label, 0, label.length(), rectLabel);
-
-        canvas.drawText(label, (float) (getWidth() - rectLabel.width()) / 2,
-                rectLabel.height() + (float) (getHeight() - rectLabel.height()) / 2, paintLabel);
-
-        // Draw day of cycle, if applicable
-        if (!isPressed() && dayofcycle != 0) {
-            label = String.format("%d", dayofcycle);
-            paintLabel.setTextSize(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 12, metrics));
-            paintLabel.setColor(colorLabel);
-            paintLabel.getTextBounds(label, 0, label.length(), rectLabel);
+        canvas.drawText(label, labelX, labelY, paintLabel);
 
-            canvas.drawText(label,
-                    rectCanvas.width() - (float) rectLabel.width() - 4 * metrics.density,
-                    rectCanvas.height() - (float) rectLabel.height() / 2 - 1 * metrics.density,
-                    paintLabel);
-        }
+        if (!isPressed) {
+            // Draw day of cycle, if applicable
+            if (labelCycle != null) {
+                canvas.drawText(labelCycle, cycleX, cycleY, paintCycle);
+            }
 
-        if (!isPressed()) {
             // Draw the "current day" mark, if needed
             if (isCurrent) {
-                paintOval.setStyle(Style.STROKE);
-                paintOval.setAntiAlias(true);
-
-                rectOval1.set(10 * metrics.density, 4 * metrics.density,
-                        rectCanvas.right - 4 * metrics.density, rectCanvas.bottom - 4 * metrics.density);
-                rectOval2.set(rectOval1.left - 6 * metrics.density, rectOval1.top - 1,
-                        rectOval1.right, rectOval1.bottom);
-
-                // Center oval rectangle as a square
-                float delta = (rectOval1.height() - rectOval1.width()) / 2;
-                if (delta > 0) {
-                    rectOval1.top += delta;
-                    rectOval1.bottom -= delta;
-                    rectOval2.top += delta;
-                    rectOval2.bottom -= delta;
-                } else if (delta < 0) {
-                    rectOval1.left -= delta;
-                    rectOval1.right += delta;
-                    rectOval2.left -= delta;
-                    rectOval2.right += delta;
-                }
-
-                // Draw oval
-                paintOval.setColor(colorOpacity);
-                paintOval.setStrokeWidth(3 * metrics.density);
-                canvas.drawArc(rectOval1, 200, 160, false, paintOval);
-                canvas.drawArc(rectOval2, 0, 240, false, paintOval);
-
-                paintOval.setColor(colorWhite);
-                paintOval.setStrokeWidth(2 * metrics.density);
-                canvas.drawArc(rectOval1, 200, 160, false, paintOval);
-                canvas.drawArc(rectOval2, 0, 240, false, paintOval);
+                canvas.drawArc(rectOval1, 200, 160, false, paintOvalOuter);
+                canvas.drawArc(rectOval2, 0, 240, false, paintOvalOuter);
+                canvas.drawArc(rectOval1, 200, 160, false, paintOvalInner);
+                canvas.drawArc(rectOval2, 0, 240, false, paintOvalInner);
             }
         }
 
-        // Draw focused or pressed state, if the button is focused
-        if (isFocused()) {
-            paintFocus.setStyle(Style.STROKE);
-            paintFocus.setStrokeWidth(4 * metrics.density);
-            paintFocus.setColor(colorFocus);
-            canvas.drawRoundRect(rectCanvas, 3 * metrics.density, 3 * metrics.density, paintFocus);
+        // Draw focused state, if the cell is focused
+        if (isFocused) {
+            canvas.drawRoundRect(rectCanvas, radius, radius, paintFocus);
         }
     }
 
     /**
-     * Helper to create a linear gradient
+     * Get the gradient for the current type
      *
-     * @param colorStart Color to start with
-     * @param colorEnd   Color to end with
-     * @return A LinearGradient with the given colors at a 45 degree angle
-     */
-    private LinearGradient makeCellGradient(int colorStart, int colorEnd) {
-        return new LinearGradient(0, 0,
-                rectCanvas.width(), rectCanvas.height(),
-                colorStart, colorEnd,
-                android.graphics.Shader.TileMode.CLAMP);
+     * @return The gradient constant
+     */
+    private int getGradient() {
+        switch (type) {
+            case DayEntry.PERIOD_START: // Start of period
+            case DayEntry.PERIOD_CONFIRMED: // Confirmed period day
+                return CalendarCellResources.GRADIENT_PERIOD_CONFIRMED;
+            case DayEntry.PERIOD_PREDICTED: // Predicted period day
+                return CalendarCellResources.GRADIENT_PERIOD_PREDICTED;
+            case DayEntry.FERTILITY_PREDICTED: // Calculated fertile day
+            case DayEntry.OVULATION_PREDICTED: // Calculated day of ovulation
+                return CalendarCellResources.GRADIENT_FERTILITY_PREDICTED;
+            case DayEntry.FERTILITY_FUTURE: // Calculated fertile day in the future
+            case DayEntry.OVULATION_FUTURE: // Calculated day of ovulation in the future
+                return CalendarCellResources.GRADIENT_FERTILITY_FUTURE;
+            case DayEntry.FERTILITY_STANDARD_PREDICTED: // Calculated fertile standard day
+                return CalendarCellResources.GRADIENT_FERTILITY_STANDARD_PREDICTED;
+            case DayEntry.FERTILITY_STANDARD_FUTURE: // Calculated fertile day in the future
+                return CalendarCellResources.GRADIENT_FERTILITY_STANDARD_FUTURE;
+            case DayEntry.INFERTILE_PREDICTED: // Calculated infertile day
+                return CalendarCellResources.GRADIENT_INFERTILE_PREDICTED;
+            case DayEntry.INFERTILE_FUTURE: // Calculated infertile day in the future
+                return CalendarCellResources.GRADIENT_INFERTILE_FUTURE;
+            default:
+                return CalendarCellResources.GRADIENT_EMPTY;
+        }
     }
 
     /**
-     * Helper to update content description on all calendar cells
+     * Update background, overlay and label color after the type or the state changed
      */
-    public void updateContentDescription() {
-        GregorianCalendarExt cal = new GregorianCalendarExt();
-        cal.set(getYear(), getMonth() - 1, getDay());
-        String contentDescription = DateUtils.formatDateTime(getContext(), cal.getTimeInMillis(),
-                DateUtils.FORMAT_SHOW_DATE | DateUtils.FORMAT_SHOW_YEAR);
+    private void updateType() {
+        paintBackground.setShader(gradients[getGradient()]);
 
         switch (type) {
             case DayEntry.PERIOD_START:
-                contentDescription += " - " + getResources().getString(R.string.label_period_started);
-                break;
-            case DayEntry.PERIOD_CONFIRMED:
-                contentDescription += " - " + getResources().getString(R.string.label_period);
-                break;
-            case DayEntry.PERIOD_PREDICTED:
-                contentDescription += " - " + getResources().getString(R.string.label_period_predicted);
-                break;
-            case DayEntry.FERTILITY_PREDICTED:
-            case DayEntry.FERTILITY_FUTURE:
-                contentDescription += " - " + getResources().getString(R.string.label_fertile);
+                bitmapType = CalendarCellResources.BITMAP_PERIOD;
                 break;
             case DayEntry.OVULATION_PREDICTED:
-            case DayEntry.OVULATION_FUTURE:
-                contentDescription += " - " + getResources().getString(R.string.label_ovulation);
+                bitmapType = CalendarCellResources.BITMAP_OVULATION;
                 break;
-            case DayEntry.INFERTILE_PREDICTED:
-            case DayEntry.INFERTILE_FUTURE:
-                contentDescription += " - " + getResources().getString(R.string.label_infertile);
+            case DayEntry.OVULATION_FUTURE:
+                bitmapType = CalendarCellResources.BITMAP_OVULATION_FUTURE;
                 break;
-            case DayEntry.FERTILITY_STANDARD_PREDICTED:
-            case DayEntry.FERTILITY_STANDARD_FUTURE:
-                contentDescription += " - " + getResources().getString(R.string.label_fertile_standard);
+            default:
+                bitmapType = -1;
                 break;
         }
-        setContentDescription(contentDescription);
+
+        int color;
+        if (isPressed) {
+            color = colorOpacity;
+        } else {
+            switch (type) {
+                case DayEntry.PERIOD_PREDICTED:
+                case DayEntry.FERTILITY_FUTURE:
+                case DayEntry.OVULATION_FUTURE:
+                case DayEntry.FERTILITY_STANDARD_FUTURE:
+                case DayEntry.INFERTILE_PREDICTED:
+                case DayEntry.INFERTILE_FUTURE:
+                    color = colorOpacity;
+                    break;
+                default:
+                    color = colorWhite;
+                    break;
+            }
+        }
+        colorLabel = color;
+        paintLabel.setColor(color);
+        paintCycle.setColor(color);
+    }
+
+    /**
+     * Update the position of the label after the text or the size changed
+     */
+    private void updateLabelPosition() {
+        paintLabel.getTextBounds(label, 0, label.length(), rectLabel);
+        labelX = (rectCanvas.width() - rectLabel.width()) / 2;
+        labelY = rectLabel.height() + (rectCanvas.height() - rectLabel.height()) / 2;
+    }
+
+    /**
+     * Update the position of the day of cycle after the text or the size changed
+     */
+    private void updateCyclePosition() {
+        if (labelCycle == null) {
+            return;
+        }
+        paintCycle.getTextBounds(labelCycle, 0, labelCycle.length(), rectCycle);
+        cycleX = rectCanvas.width() - (float) rectCycle.width() - 4 * density;
+        cycleY = rectCanvas.height() - (float) rectCycle.height() / 2 - 1 * density;
     }
 
     /**
@@ -553,7 +482,7 @@ public class CalendarCell extends Button {
      *
      * @param current true if this is the current day, false otherwise
      */
-    public void setCurrent(boolean current) {
+    void setCurrent(boolean current) {
         isCurrent = current;
     }
 
@@ -562,17 +491,24 @@ public class CalendarCell extends Button {
      *
      * @param type The type as stored in the database to define the look of the cell
      */
-    public void setType(int type) {
-        this.type = type;
+    void setType(int type) {
+        if (this.type != type) {
+            this.type = type;
+            updateType();
+        }
     }
 
     /**
      * Set day of cycle
      *
-     * @param dayofcycle The type as stored in the database to define the look of the cell
+     * @param dayofcycle The day of cycle, 0 to hide it
      */
-    public void setDayofcycle(int dayofcycle) {
-        this.dayofcycle = dayofcycle;
+    void setDayofcycle(int dayofcycle) {
+        if (this.dayofcycle != dayofcycle) {
+            this.dayofcycle = dayofcycle;
+            labelCycle = dayofcycle != 0 ? Integer.toString(dayofcycle) : null;
+            updateCyclePosition();
+        }
     }
 
     /**
@@ -580,7 +516,7 @@ public class CalendarCell extends Button {
      *
      * @param intensity Intensity of this day (1-4)
      */
-    public void setIntensity(int intensity) {
+    void setIntensity(int intensity) {
         this.intensity = intensity;
     }
 
@@ -589,7 +525,7 @@ public class CalendarCell extends Button {
      *
      * @param intercourse true if intercourse, false otherwise
      */
-    public void setIntercourse(boolean intercourse) {
+    void setIntercourse(boolean intercourse) {
         this.intercourse = intercourse;
     }
 
@@ -598,62 +534,40 @@ public class CalendarCell extends Button {
      *
      * @param notes true if notes exist, false otherwise
      */
-
-    public void setNotes(boolean notes) {
+    void setNotes(boolean notes) {
         this.notes = notes;
     }
 
     /**
-     * Set the day to be displayed
+     * Set the label to be displayed
      *
-     * @param day The day of the month (1-31)
+     * @param label The day of the month as text
      */
-    public void setDay(int day) {
-        this.day = day;
-    }
-
-    /**
-     * Get the displayed day
-     *
-     * @return The day of the month (1-31)
-     */
-    private int getDay() {
-        return day;
-    }
-
-    /**
-     * Set the month
-     *
-     * @param month The month (1-12)
-     */
-    public void setMonth(int month) {
-        this.month = month;
-    }
-
-    /**
-     * Get the month
-     *
-     * @return The month (1-12)
-     */
-    private int getMonth() {
-        return month;
+    void setLabel(String label) {
+        if (!this.label.equals(label)) {
+            this.label = label;
+            updateLabelPosition();
+        }
     }
 
     /**
-     * Set the year
+     * Set "is pressed" flag
      *
-     * @param year The year
+     * @param pressed true if the cell is pressed, false otherwise
      */
-    public void setYear(int year) {
-        this.year = year;
+    void setPressed(boolean pressed) {
+        if (isPressed != pressed) {
+            isPressed = pressed;
+            updateType();
+        }
     }
 
     /**
-     * Get the year
+     * Set "is focused" flag
      *
-     * @return The year
+     * @param focused true if the cell has the keyboard focus, false otherwise
      */
-    private int getYear() {
-        return year;
+    void setFocused(boolean focused) {
+        isFocused = focused;
     }
 }
@@ -0,0 +1,284 @@
+/*
+ * Periodical calendar cell resources class
+ * Copyright (C) 2012-2025 Arno Welzel
+ *
+ * This code is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.arnowelzel.android.periodical;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.LinearGradient;
+import android.graphics.Paint;
+import android.graphics.Paint.Style;
+import android.util.LruCache;
+
+import androidx.core.content.ContextCompat;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Drawing resources shared by all calendar cells
+ *
+ * <br><br><i>Bitmaps are decoded when they are used first and kept within a memory budget.
+ * Gradients are created once for each cell size. Everything except the colors can be released
+ * when the system is low on memory and will then be created again when needed.</i>
+ */
+class CalendarCellResources {
+    /**
+     * Gradient for entries of type "confirmed period"
+     */
+    final static int GRADIENT_PERIOD_CONFIRMED = 0;
+    /**
+     * Gradient for entries of type "predicted period"
+     */
+    final static int GRADIENT_PERIOD_PREDICTED = 1;
+    /**
+     * Gradient for entries of type "predicted fertility" and "ovulation"
+     */
+    final static int GRADIENT_FERTILITY_PREDICTED = 2;
+    /**
+     * Gradient for entries of type "predicted fertility standard"
+     */
+    final static int GRADIENT_FERTILITY_STANDARD_PREDICTED = 3;
+    /**
+     * Gradient for entries of type "predicted fertility in the future" and "ovulation in the future"
+     */
+    final static int GRADIENT_FERTILITY_FUTURE = 4;
+    /**
+     * Gradient for entries of type "predicted fertility standard in the future"
+     */
+    final static int GRADIENT_FERTILITY_STANDARD_FUTURE = 5;
+    /**
+     * Gradient for entries of type "infertile day predicted"
+     */
+    final static int GRADIENT_INFERTILE_PREDICTED = 6;
+    /**
+     * Gradient for entries of type "infertile day predicted in the future"
+     */
+    final static int GRADIENT_INFERTILE_FUTURE = 7;
+    /**
+     * Gradient for empty entries
+     */
+    final static int GRADIENT_EMPTY = 8;
+
+    /**
+     * Bitmap for entries of type "period"
+     */
+    final static int BITMAP_PERIOD = 0;
+    /**
+     * Bitmap for entries of type "ovulation"
+     */
+    final static int BITMAP_OVULATION = 1;
+    /**
+     * Bitmap for entries of type "ovulation in the future"
+     */
+    final static int BITMAP_OVULATION_FUTURE = 2;
+    /**
+     * Bitmap for entries with flag "intercourse"
+     */
+    final static int BITMAP_INTERCOURSE = 3;
+    /**
+     * Bitmap for entries with flag "intercourse" (black variant)
+     */
+    final static int BITMAP_INTERCOURSE_BLACK = 4;
+    /**
+     * Bitmap for entries with flag "notes"
+     */
+    final static int BITMAP_NOTES = 5;
+    /**
+     * Bitmap for entries with flag "notes" (black variant)
+     */
+    final static int BITMAP_NOTES_BLACK = 6;
+
+    /**
+     * Drawables in the order of the bitmap constants
+     */
+    private final static int[] BITMAP_IDS = {
+            R.drawable.ic_start,
+            R.drawable.ic_ovulation,
+            R.drawable.ic_ovulation_predicted,
+            R.drawable.ic_intercourse,
+            R.drawable.ic_intercourse_black,
+            R.drawable.ic_notes,
+            R.drawable.ic_notes_black
+    };
+
+    /**
+     * Memory budget for decoded bitmaps in bytes
+     */
+    private final static int BITMAP_BUDGET = 1024 * 1024;
+    /**
+     * Maximum number of cell sizes to keep gradients for
+     */
+    private final static int GRADIENT_SIZES = 4;
+
+    /**
+     * Screen density the resources were created for
+     */
+    final int densityDpi;
+
+    /**
+     * Colors
+     */
+    final int colorPeriodConfirmed;
+    final int colorPeriodPredicted;
+    final int colorFertilityPredicted;
+    final int colorFertilityStandardPredicted;
+    final int colorFertilityFuture;
+    final int colorFertilityStandardFuture;
+    final int colorInfertilePredicted;
+    final int colorInfertileFuture;
+    final int colorEmpty;
+    final int colorBlack;
+    final int colorWhite;
+    final int colorFocus;
+    final int colorOpacity;
+
+    /**
+     * Colors of the gradients in the order of the gradient constants
+     */
+    private final int[] gradientColors;
+
+    /**
+     * Paint for the intensity markers, never changed after creation
+     */
+    final Paint paintIntensity;
+    /**
+     * Paint for bitmaps, never changed after creation
+     */
+    final Paint paintBitmap;
+
+    /**
+     * Decoded bitmaps by bitmap constant
+     *
+     * <br><br><i>The keys are small numbers, so looking up a bitmap does not create
+     * new Integer objects while drawing.</i>
+     */
+    private final LruCache<Integer, Bitmap> bitmaps;
+    /**
+     * Gradients by cell size, ordered by last access
+     */
+    private final LinkedHashMap<Long, LinearGradient[]> gradients =
+            new LinkedHashMap<Long, LinearGradient[]>(8, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, LinearGradient[]> eldest) {
+                    return size() > GRADIENT_SIZES;
+                }
+            };
+
+    /**
+     * Constructor
+     *
+     * @param context Application context
+     */
+    CalendarCellResources(Context context) {
+        final Resources resources = context.getResources();
+        densityDpi = resources.getDisplayMetrics().densityDpi;
+
+        colorPeriodConfirmed = ContextCompat.getColor(context, R.color.colorPeriodConfirmed);
+        colorPeriodPredicted = ContextCompat.getColor(context, R.color.colorPeriodPredicted);
+        colorFertilityPredicted = ContextCompat.getColor(context, R.color.colorFertilityPredicted);
+        colorFertilityStandardPredicted = ContextCompat.getColor(context, R.color.colorFertilityStandardPredicted);
+        colorFertilityFuture = ContextCompat.getColor(context, R.color.colorFertilityFuture);
+        colorFertilityStandardFuture = ContextCompat.getColor(context, R.color.colorFertilityStandardFuture);
+        colorInfertilePredicted = ContextCompat.getColor(context, R.color.colorInfertilePredicted);
+        colorInfertileFuture = ContextCompat.getColor(context, R.color.colorInfertileFuture);
+        colorEmpty = ContextCompat.getColor(context, R.color.colorEmpty);
+        colorBlack = ContextCompat.getColor(context, R.color.colorBlack);
+        colorWhite = ContextCompat.getColor(context, R.color.colorWhite);
+        colorFocus = ContextCompat.getColor(context, R.color.colorFocus);
+        colorOpacity = ContextCompat.getColor(context, R.color.colorOpacity);
+
+        gradientColors = new int[]{
+                colorPeriodConfirmed,
+                colorPeriodPredicted,
+                colorFertilityPredicted,
+                colorFertilityStandardPredicted,
+                colorFertilityFuture,
+                colorFertilityStandardFuture,
+                colorInfertilePredicted,
+                colorInfertileFuture,
+                colorEmpty
+        };
+
+        paintIntensity = new Paint();
+        paintIntensity.setStyle(Style.FILL);
+        paintIntensity.setColor(colorWhite);
+        paintBitmap = new Paint();
+        paintBitmap.setStyle(Style.FILL);
+        paintBitmap.setFilterBitmap(true);
+
+        bitmaps = new LruCache<Integer, Bitmap>(BITMAP_BUDGET) {
+            @Override
+            protected Bitmap create(Integer bitmap) {
+                return BitmapFactory.decodeResource(resources, BITMAP_IDS[bitmap]);
+            }
+
+            @Override
+            protected int sizeOf(Integer key, Bitmap bitmap) {
+                return bitmap.getAllocationByteCount();
+            }
+        };
+    }
+
+    /**
+     * Get a bitmap, which is decoded if needed
+     *
+     * <br><br><i>Cells must not keep the bitmap after drawing, so it can be released.</i>
+     *
+     * @param bitmap Bitmap constant
+     * @return The bitmap
+     */
+    Bitmap getBitmap(int bitmap) {
+        return bitmaps.get(bitmap);
+    }
+
+    /**
+     * Get the gradients for a cell size
+     *
+     * @param width  Width of the cell
+     * @param height Height of the cell
+     * @return The gradients in the order of the gradient constants
+     */
+    synchronized LinearGradient[] getGradients(int width, int height) {
+        long key = ((long) width << 32) | (height & 0xffffffffL);
+        LinearGradient[] result = gradients.get(key);
+        if (result == null) {
+            result = new LinearGradient[gradientColors.length];
+            for (int index = 0; index < gradientColors.length; index++) {
+                result[index] = new LinearGradient(0, 0, width, height,
+                        gradientColors[index], gradientColors[index],
+                        android.graphics.Shader.TileMode.CLAMP);
+            }
+            gradients.put(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * Release all bitmaps and gradients
+     *
+     * <br><br><i>Cells which are still visible keep their gradients, bitmaps are decoded again
+     * when they are drawn next time.</i>
+     */
+    synchronized void release() {
+        bitmaps.evictAll();
+        gradients.clear();
+    }
+}
@@ -0,0 +1,449 @@
+/*
+ * Periodical cycle calculator class
+ * Copyright (C) 2012-2025 Arno Welzel
+ *
+ * This code is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.arnowelzel.android.periodical;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Calculation of cycles, fertility and predictions based on the period days
+ *
+ * <br><br><i>This class does not depend on Android, the period days are provided by a
+ * {@link PeriodSource} and the result is kept in a {@link DayStore}. After a change only the
+ * cycles beginning with the last period start before the changed day are calculated again.
+ * Future cycles are not stored, see {@link CyclePrediction}.</i>
+ */
+class CycleCalculator {
+    /**
+     * Number of the last cycles used for the shortest and longest cycle
+     */
+    final static int CYCLE_WINDOW = 13;
+
+    /**
+     * Source of the period days used for the calculation
+     */
+    interface PeriodSource {
+        /**
+         * Get period starts and confirmed period days in the order of their dates
+         *
+         * @param eventdayAfter Only include days after this day
+         */
+        PeriodDays load(int eventdayAfter);
+    }
+
+    /**
+     * Period days in the order of their dates, kept in primitive arrays
+     *
+     * <br><br><i>This can also be used as source itself, e.g. for benchmarks.</i>
+     */
+    static class PeriodDays implements PeriodSource {
+        /**
+         * Days as number of days since 1970-01-01
+         */
+        private int[] eventdays = new int[16];
+        /**
+         * Entry types (DayEntry.PERIOD_START or DayEntry.PERIOD_CONFIRMED)
+         */
+        private byte[] types = new byte[16];
+        /**
+         * Intensities of the period
+         */
+        private byte[] intensities = new byte[16];
+        /**
+         * Number of days
+         */
+        private int size = 0;
+
+        /**
+         * Add a day, which must be after all days added before
+         *
+         * @param eventday  Day as number of days since 1970-01-01
+         * @param type      Entry type
+         * @param intensity Intensity of the period
+         */
+        void add(int eventday, int type, int intensity) {
+            if (size == eventdays.length) {
+                eventdays = Arrays.copyOf(eventdays, size * 2);
+                types = Arrays.copyOf(types, size * 2);
+                intensities = Arrays.copyOf(intensities, size * 2);
+            }
+            eventdays[size] = eventday;
+            types[size] = (byte) type;
+            intensities[size] = (byte) intensity;
+            size++;
+        }
+
+        /**
+         * Get number of days
+         */
+        int size() {
+            return size;
+        }
+
+        /**
+         * Get a day as number of days since 1970-01-01
+         *
+         * @param index Index of the day
+         */
+        int getEventday(int index) {
+            return eventdays[index];
+        }
+
+        /**
+         * Get entry type of a day
+         *
+         * @param index Index of the day
+         */
+        int getType(int index) {
+            return types[index];
+        }
+
+        /**
+         * Get the index of the first day after a given day
+         *
+         * @param eventdayAfter Day to search for
+         */
+        private int indexAfter(int eventdayAfter) {
+            int index = Arrays.binarySearch(eventdays, 0, size, eventdayAfter);
+            return index >= 0 ? index + 1 : -index - 1;
+        }
+
+        @Override
+        public PeriodDays load(int eventdayAfter) {
+            PeriodDays days = new PeriodDays();
+            for (int index = indexAfter(eventdayAfter); index < size; index++) {
+                days.add(eventdays[index], types[index], intensities[index]);
+            }
+            return days;
+        }
+    }
+
+    /**
+     * State of the calculation after a period start
+     */
+    private static class CalculationState {
+        /**
+         * Day of the period start
+         */
+        int eventday;
+        /**
+         * Number of cycles used for the calculation
+         */
+        int count;
+        /**
+         * Number of all cycles
+         */
+        int cycleCount;
+        /**
+         * Sum of the lengths of all cycles used for the calculation
+         */
+        int cycleSum;
+        /**
+         * Last cycles used for the shortest and longest cycle length
+         */
+        CycleWindow window = new CycleWindow(CYCLE_WINDOW);
+        /**
+         * Predicted day of ovulation in the current cycle
+         */
+        int ovulationday;
+        /**
+         * Last day which got a calculated entry for the days between two periods
+         */
+        int filledUntil = Integer.MIN_VALUE;
+
+        /**
+         * Create a copy of this state
+         */
+        CalculationState copy() {
+            CalculationState state = new CalculationState();
+            state.eventday = eventday;
+            state.count = count;
+            state.cycleCount = cycleCount;
+            state.cycleSum = cycleSum;
+            state.window = window.copy();
+            state.ovulationday = ovulationday;
+            state.filledUntil = filledUntil;
+            return state;
+        }
+    }
+
+    /**
+     * States of the current calculation for each period start
+     */
+    private final ArrayList<CalculationState> checkpoints = new ArrayList<>();
+    /**
+     * Settings used for the current calculation
+     */
+    private int calculatedPeriodLength;
+    private int calculatedLutealLength;
+    private int calculatedMaximumCycleLength;
+
+    /**
+     * Calculated day entries
+     */
+    private final DayStore dayStore = new DayStore();
+    /**
+     * Number of cycles
+     */
+    int cycleCount;
+    /**
+     * Calculated average cycle length
+     */
+    int cycleAverage;
+    /**
+     * Calculated longest cycle length
+     */
+    int cycleLongest;
+    /**
+     * Calculated shortest cycle length
+     */
+    int cycleShortest;
+    /**
+     * Prediction of future cycles
+     */
+    private CyclePrediction prediction = CyclePrediction.NONE;
+
+    /**
+     * Get the calculated day entries
+     *
+     * <br><br><i>The store is changed by every calculation.</i>
+     */
+    DayStore getDays() {
+        return dayStore;
+    }
+
+    /**
+     * Get the prediction of future cycles
+     */
+    CyclePrediction getPrediction() {
+        return prediction;
+    }
+
+    /**
+     * Calculate everything
+     *
+     * @param source             Period days
+     * @param periodLength       Length of a predicted period
+     * @param lutealLength       Length of the luteal phase
+     * @param maximumCycleLength Maximum length of a cycle to be used for the calculation
+     * @return Day after which entries were calculated, all entries after it are new
+     */
+    int calculate(PeriodSource source, int periodLength, int lutealLength, int maximumCycleLength) {
+        return calculate(source, null, periodLength, lutealLength, maximumCycleLength);
+    }
+
+    /**
+     * Update the calculation after the entries of a specific day were changed
+     *
+     * <br><br><i>Only the cycles starting with the last period before the changed day and the
+     * predictions are calculated again. All results before are kept as they can not be
+     * affected by the change.</i>
+     *
+     * @param source             Period days
+     * @param eventday           Changed day as number of days since 1970-01-01
+     * @param periodLength       Length of a predicted period
+     * @param lutealLength       Length of the luteal phase
+     * @param maximumCycleLength Maximum length of a cycle to be used for the calculation
+     * @return Day after which entries were calculated, all entries after it are new
+     */
+    int update(PeriodSource source, int eventday,
+               int periodLength, int lutealLength, int maximumCycleLength) {
+        // Without a previous calculation or with changed settings everything must be calculated
+        if (checkpoints.isEmpty()
+                || calculatedPeriodLength != periodLength
+                || calculatedLutealLength != lutealLength
+                || calculatedMaximumCycleLength != maximumCycleLength) {
+            return calculate(source, periodLength, lutealLength, maximumCycleLength);
+        }
+
+        // Find the last period start before the changed day. If the days between two periods
+        // were filled beyond this start (e.g. when confirmed days are missing), these entries
+        // would be lost, so an earlier start must be used then.
+        int index = checkpoints.size() - 1;
+        while (index >= 0 && (checkpoints.get(index).eventday >= eventday
+                || checkpoints.get(index).filledUntil > checkpoints.get(index).eventday)) {
+            index--;
+        }
+        if (index < 0) {
+            return calculate(source, periodLength, lutealLength, maximumCycleLength);
+        }
+
+        return calculate(source, checkpoints.get(index), periodLength, lutealLength, maximumCycleLength);
+    }
+
+    /**
+     * Calculate entries, beginning at a given state or from the start
+     *
+     * @param source             Period days
+     * @param resume             State to continue with or null to calculate everything
+     * @param periodlength       Length of a predicted period
+     * @param luteallength       Length of the luteal phase
+     * @param maximumcyclelength Maximum length of a cycle to be used for the calculation
+     * @return Day after which entries were calculated
+     */
+    private int calculate(PeriodSource source, CalculationState resume,
+                          int periodlength, int luteallength, int maximumcyclelength) {
+        int eventdayLast = 0;
+        int eventdayPrevious = 0;
+        int eventdayPreviousStart = 0;
+        boolean isFirst = true;
+        CalculationState state;
+        int dayofcycle = 1;
+        int eventdayAfter;
+
+        calculatedPeriodLength = periodlength;
+        calculatedLutealLength = luteallength;
+        calculatedMaximumCycleLength = maximumcyclelength;
+
+        // Just a safety measure: limit maximum cycle lengths to the allowed minimum value
+        if (maximumcyclelength < 60) maximumcyclelength = 60;
+
+        if (resume == null) {
+            // Clean up existing data
+            dayStore.clear();
+            checkpoints.clear();
+            state = new CalculationState();
+            eventdayAfter = Integer.MIN_VALUE;
+        } else {
+            // Remove existing data after the period start to continue with
+            dayStore.truncate(resume.eventday);
+            while (checkpoints.get(checkpoints.size() - 1) != resume) {
+                checkpoints.remove(checkpoints.size() - 1);
+            }
+            state = resume.copy();
+            eventdayLast = resume.eventday;
+            eventdayPrevious = resume.eventday;
+            eventdayPreviousStart = resume.eventday;
+            isFirst = false;
+            eventdayAfter = resume.eventday;
+        }
+
+        // Get all period related entries to fill the calendar
+        PeriodDays days = source.load(eventdayAfter);
+        for (int index = 0; index < days.size; index++) {
+            int eventday = days.eventdays[index];
+            int eventtype = days.types[index];
+            int intensity = days.intensities[index];
+
+            switch (eventtype) {
+                case DayEntry.PERIOD_START:
+                    state.cycleCount++;
+
+                    if (isFirst) {
+                        // First event at all - just create an initial start entry
+                        dayofcycle = 1;
+                        eventdayPrevious = eventday;
+                        eventdayPreviousStart = eventday;
+                        dayStore.put(eventday, eventtype, 1, intensity);
+                        isFirst = false;
+                    } else {
+                        // Length of the previous cycle
+                        eventdayLast = eventday;
+                        int length = eventday - eventdayPreviousStart;
+
+                        // Add calculated values from the last date to this day, if the period has not
+                        // unusual lengths (e.g. after a longer pause because of pregnancy etc.)
+                        if (length <= maximumcyclelength) {
+                            state.count++;
+
+                            // Update values which are used to calculate the fertility
+                            // window for the last cycles
+                            state.window.add(length);
+                            int cycleShortest = state.window.getShortest(28);
+                            int cycleLongest = state.window.getLongest(28);
+
+                            // Update average sum
+                            state.cycleSum += length;
+
+                            // Calculate a predicted ovulation date
+                            state.ovulationday = length - luteallength;
+
+                            // Calculate days from the last event until now
+                            int dayPrevious = eventdayPrevious;
+                            for (int day = dayofcycle; day < length; day++) {
+                                dayPrevious++;
+                                dayofcycle++;
+
+                                int type;
+
+                                if (dayofcycle == state.ovulationday) {
+                                    // Day of ovulation
+                                    type = DayEntry.OVULATION_PREDICTED;
+                                } else if (dayofcycle >= cycleShortest - luteallength - 4
+                                        && dayofcycle <= cycleLongest - luteallength + 3) {
+                                    // Fertile days
+                                    type = DayEntry.FERTILITY_PREDICTED;
+                                } else {
+                                    // Infertile days
+                                    type = DayEntry.INFERTILE_PREDICTED;
+                                }
+
+                                // Standard days Method
+                                /*
+                                if (dayofcycle >= 8 && dayofcycle <= 19) {
+                                    if(type != DayEntry.FERTILITY_PREDICTED && type != DayEntry.OVULATION_PREDICTED) {
+                                        type = DayEntry.FERTILITY_STANDARD_PREDICTED;
+                                    }
+                                }
+                                */
+
+                                dayStore.put(dayPrevious, type, dayofcycle, 1);
+                            }
+                            state.filledUntil = Math.max(state.filledUntil, dayPrevious);
+                        }
+
+                        // Finally add the entry
+                        dayofcycle = 1;
+                        eventdayPrevious = eventday;
+                        eventdayPreviousStart = eventday;
+                        dayStore.put(eventday, eventtype, 1, intensity);
+                    }
+
+                    // Remember the state at this period start to continue from here later
+                    state.eventday = eventday;
+                    checkpoints.add(state.copy());
+                    break;
+
+                case DayEntry.PERIOD_CONFIRMED:
+                    dayofcycle++;
+                    eventdayLast = eventday;
+                    eventdayPrevious = eventday;
+                    dayStore.put(eventday, eventtype, dayofcycle, intensity);
+                    break;
+            }
+        }
+
+        // Calculate global average and prediction if possible
+        this.cycleCount = state.cycleCount;
+        this.cycleAverage = 0;
+        this.cycleLongest = state.window.getLongest(28);
+        this.cycleShortest = state.window.getShortest(28);
+        this.prediction = CyclePrediction.NONE;
+        if (state.count > 0) {
+            this.cycleAverage = state.cycleSum / state.count;
+
+            // Future days are only calculated when they are requested
+            this.prediction = new CyclePrediction(eventdayLast, dayofcycle, cycleAverage,
+                    periodlength, luteallength, state.ovulationday,
+                    this.cycleShortest, this.cycleLongest);
+        }
+
+        return eventdayAfter;
+    }
+}
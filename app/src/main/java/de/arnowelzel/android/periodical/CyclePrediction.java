@@ -0,0 +1,171 @@
+/*
+ * Periodical cycle prediction class
+ * Copyright (C) 2012-2025 Arno Welzel
+ *
+ * This code is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.arnowelzel.android.periodical;
+
+/**
+ * Prediction of future cycles after the last entered period
+ *
+ * <br><br><i>Predicted days are not stored but calculated from the day when they are
+ * requested, so any number of future cycles can be shown without using more memory.</i>
+ */
+class CyclePrediction {
+    /**
+     * Prediction used if there are not enough cycles to predict anything
+     */
+    final static CyclePrediction NONE = new CyclePrediction(0, 0, 0, 0, 0, 0, 0, 0);
+
+    /**
+     * Last entered period day
+     */
+    private final int eventdayLast;
+    /**
+     * Day of cycle of the last entered period day
+     */
+    private final int dayofcycleLast;
+    /**
+     * Length of each predicted cycle
+     */
+    private final int cycleAverage;
+    private final int periodLength;
+    private final int ovulationday;
+    /**
+     * First and last fertile day of each predicted cycle
+     */
+    private final int fertileFirst;
+    private final int fertileLast;
+
+    /**
+     * Construct a new prediction
+     *
+     * @param eventdayLast   Last entered period day as number of days since 1970-01-01
+     * @param dayofcycleLast Day of cycle of the last entered period day
+     * @param cycleAverage   Average cycle length, 0 if nothing can be predicted
+     * @param periodLength   Length of a predicted period
+     * @param lutealLength   Length of the luteal phase
+     * @param ovulationday   Day of ovulation within a cycle
+     * @param cycleShortest  Shortest of the last cycles
+     * @param cycleLongest   Longest of the last cycles
+     */
+    CyclePrediction(int eventdayLast, int dayofcycleLast, int cycleAverage, int periodLength,
+                    int lutealLength, int ovulationday, int cycleShortest, int cycleLongest) {
+        this.eventdayLast = eventdayLast;
+        this.dayofcycleLast = dayofcycleLast;
+        this.cycleAverage = cycleAverage;
+        this.periodLength = periodLength;
+        this.ovulationday = ovulationday;
+        this.fertileFirst = cycleShortest - lutealLength - 4;
+        this.fertileLast = cycleLongest - lutealLength + 3;
+    }
+
+    /**
+     * Get predicted day of cycle
+     *
+     * @param eventday Day as number of days since 1970-01-01
+     * @return Day of cycle or 0 if there is no prediction for this day
+     */
+    int getDayOfCycle(int eventday) {
+        if (cycleAverage <= 0 || eventday <= eventdayLast) {
+            return 0;
+        }
+
+        // The current cycle ends after the average length, if it is not already longer
+        int offset = eventday - eventdayLast;
+        int offsetCurrent = Math.max(0, cycleAverage - dayofcycleLast);
+        if (offset <= offsetCurrent) {
+            return dayofcycleLast + offset;
+        }
+        return (offset - offsetCurrent - 1) % cycleAverage + 1;
+    }
+
+    /**
+     * Get predicted entry type
+     *
+     * @param eventday Day as number of days since 1970-01-01
+     * @return Entry type or DayEntry.EMPTY if there is no prediction for this day
+     */
+    int getType(int eventday) {
+        int day = getDayOfCycle(eventday);
+        if (day == 0) {
+            return DayEntry.EMPTY;
+        }
+
+        // Ogino Method
+        if (day <= periodLength) {
+            // Predicted days of period
+            return DayEntry.PERIOD_PREDICTED;
+        } else if (day == ovulationday) {
+            // Day of ovulation
+            return DayEntry.OVULATION_FUTURE;
+        } else if (day >= fertileFirst && day <= fertileLast) {
+            // Fertile days
+            return DayEntry.FERTILITY_FUTURE;
+        } else {
+            // Infertile days
+            return DayEntry.INFERTILE_FUTURE;
+        }
+
+        // Standard days Method
+        /*
+        if (day >= 8 && day <= 19) {
+            if(type != DayEntry.FERTILITY_FUTURE && type != DayEntry.OVULATION_FUTURE) {
+                type = DayEntry.FERTILITY_STANDARD_FUTURE;
+            }
+        }
+        */
+    }
+
+    /**
+     * Get entry type of a day, using the prediction if there is no calculated type
+     *
+     * @param days     Calculated entries
+     * @param eventday Day as number of days since 1970-01-01
+     */
+    int getType(DayStore days, int eventday) {
+        int type = days.getType(eventday);
+        return type != DayEntry.EMPTY ? type : getType(eventday);
+    }
+
+    /**
+     * Get entry of a day, using the prediction if there is no calculated type
+     *
+     * @param days     Calculated entries
+     * @param eventday Day as number of days since 1970-01-01
+     * @return The entry or null if there is neither an entry nor a prediction for this day
+     */
+    DayEntry getEntry(DayStore days, int eventday) {
+        DayEntry entry = days.get(eventday);
+        if (entry != null && entry.type != DayEntry.EMPTY) {
+            return entry;
+        }
+
+        int type = getType(eventday);
+        if (type == DayEntry.EMPTY) {
+            return entry;
+        }
+        if (entry == null) {
+            return new DayEntry(type, eventday, getDayOfCycle(eventday), 1);
+        }
+
+        // Keep the details entered for a future day
+        entry.type = type;
+        entry.dayofcycle = getDayOfCycle(eventday);
+        entry.intensity = 1;
+        return entry;
+    }
+}
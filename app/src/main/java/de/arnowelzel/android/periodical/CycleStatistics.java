@@ -0,0 +1,321 @@
+/*
+ * Periodical cycle statistics class
+ * Copyright (C) 2012-2025 Arno Welzel
+ *
+ * This code is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.arnowelzel.android.periodical;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Statistics of cycles and periods, calculated in a single pass over the period days
+ *
+ * <br><br><i>The period days must be added in the order of their dates. Mean and standard
+ * deviation are updated with Welford's method and quantiles are taken from histograms with
+ * one bucket per day, so no list of all cycles is needed.</i>
+ */
+class CycleStatistics {
+    /**
+     * Statistics of the cycles starting in one year
+     */
+    static class YearStatistics {
+        /**
+         * Year including century
+         */
+        final int year;
+        /**
+         * Number of cycles used for the statistics
+         */
+        int count;
+        /**
+         * Sum of the cycle lengths
+         */
+        int sum;
+
+        YearStatistics(int year) {
+            this.year = year;
+        }
+
+        /**
+         * Get average cycle length
+         */
+        double getAverage() {
+            return count > 0 ? (double) sum / count : 0;
+        }
+    }
+
+    /**
+     * Statistics of a series of lengths in days
+     */
+    static class LengthStatistics {
+        /**
+         * Number of values in each bucket, the last bucket also counts all longer values
+         */
+        private final int[] histogram;
+        /**
+         * Number of values, sum, running mean and sum of squared differences from the mean
+         */
+        private int count;
+        private int sum;
+        private double mean;
+        private double squares;
+        private int shortest;
+        private int longest;
+
+        /**
+         * Construct new empty statistics
+         *
+         * @param maximum Largest length which is counted in its own bucket
+         */
+        LengthStatistics(int maximum) {
+            histogram = new int[maximum + 1];
+        }
+
+        /**
+         * Add a length
+         *
+         * @param length Length in days
+         */
+        void add(int length) {
+            count++;
+            sum += length;
+            double delta = length - mean;
+            mean += delta / count;
+            squares += delta * (length - mean);
+            histogram[Math.max(0, Math.min(length, histogram.length - 1))]++;
+            if (count == 1 || length < shortest) shortest = length;
+            if (count == 1 || length > longest) longest = length;
+        }
+
+        /**
+         * Get number of values
+         */
+        int getCount() {
+            return count;
+        }
+
+        /**
+         * Get sum of all lengths
+         */
+        int getSum() {
+            return sum;
+        }
+
+        /**
+         * Get average length
+         */
+        double getMean() {
+            return mean;
+        }
+
+        /**
+         * Get standard deviation of the lengths
+         */
+        double getStandardDeviation() {
+            return count > 1 ? Math.sqrt(squares / (count - 1)) : 0;
+        }
+
+        /**
+         * Get shortest length or 0 if there are no values
+         */
+        int getShortest() {
+            return shortest;
+        }
+
+        /**
+         * Get longest length or 0 if there are no values
+         */
+        int getLongest() {
+            return longest;
+        }
+
+        /**
+         * Get median length or 0 if there are no values
+         */
+        int getMedian() {
+            return getPercentile(50);
+        }
+
+        /**
+         * Get length which is not exceeded by the given share of all values
+         *
+         * @param percent Share of the values (0-100)
+         * @return The length or 0 if there are no values
+         */
+        int getPercentile(int percent) {
+            if (count == 0) {
+                return 0;
+            }
+            int rank = Math.max(1, (int) Math.ceil(count * percent / 100.0));
+            int seen = 0;
+            for (int length = 0; length < histogram.length; length++) {
+                seen += histogram[length];
+                if (seen >= rank) {
+                    return length;
+                }
+            }
+            return histogram.length - 1;
+        }
+    }
+
+    /**
+     * Maximum length of a cycle to be used for the statistics
+     */
+    private final int maximumCycleLength;
+    /**
+     * Lengths of all cycles used for the statistics
+     */
+    final LengthStatistics cycles;
+    /**
+     * Lengths of all periods
+     */
+    final LengthStatistics periods = new LengthStatistics(31);
+    /**
+     * Last cycles for the shortest and longest cycle, as used for the predictions
+     */
+    private final CycleWindow window = new CycleWindow(CycleCalculator.CYCLE_WINDOW);
+    /**
+     * Statistics per year, in the order of the years
+     */
+    private final ArrayList<YearStatistics> years = new ArrayList<>();
+    /**
+     * Number of period starts
+     */
+    private int starts = 0;
+    /**
+     * First day of the current period or Integer.MIN_VALUE before the first period
+     */
+    private int periodStart = Integer.MIN_VALUE;
+    /**
+     * Last day of the current period
+     */
+    private int periodEnd;
+
+    /**
+     * Construct new empty statistics
+     *
+     * @param maximumCycleLength Longer cycles (e.g. pauses because of pregnancy) are not used
+     */
+    CycleStatistics(int maximumCycleLength) {
+        this.maximumCycleLength = Math.max(maximumCycleLength, 60);
+        this.cycles = new LengthStatistics(this.maximumCycleLength);
+    }
+
+    /**
+     * Add a period day
+     *
+     * @param eventday Day as number of days since 1970-01-01
+     * @param type     Entry type (DayEntry.PERIOD_START or DayEntry.PERIOD_CONFIRMED)
+     */
+    void add(int eventday, int type) {
+        if (type == DayEntry.PERIOD_START) {
+            starts++;
+            if (periodStart != Integer.MIN_VALUE) {
+                periods.add(periodEnd - periodStart + 1);
+
+                int length = eventday - periodStart;
+                if (length <= maximumCycleLength) {
+                    cycles.add(length);
+                    window.add(length);
+                    addToYear(periodStart, length);
+                }
+            }
+            periodStart = eventday;
+            periodEnd = eventday;
+        } else if (type == DayEntry.PERIOD_CONFIRMED && periodStart != Integer.MIN_VALUE) {
+            periodEnd = eventday;
+        }
+    }
+
+    /**
+     * Add all period days and finish the statistics
+     *
+     * @param days Period days in the order of their dates
+     */
+    void add(CycleCalculator.PeriodDays days) {
+        for (int index = 0; index < days.size(); index++) {
+            add(days.getEventday(index), days.getType(index));
+        }
+        finish();
+    }
+
+    /**
+     * Finish the statistics after all period days were added
+     *
+     * <br><br><i>The last period is only included in the period statistics after this.</i>
+     */
+    void finish() {
+        if (periodStart != Integer.MIN_VALUE) {
+            periods.add(periodEnd - periodStart + 1);
+            periodStart = Integer.MIN_VALUE;
+        }
+    }
+
+    /**
+     * Add a cycle to the statistics of the year in which it started
+     *
+     * @param eventday Start of the cycle
+     * @param length   Length of the cycle
+     */
+    private void addToYear(int eventday, int length) {
+        int year = LocalDate.ofEpochDay(eventday).getYear();
+        YearStatistics current = years.isEmpty() ? null : years.get(years.size() - 1);
+        if (current == null || current.year != year) {
+            current = new YearStatistics(year);
+            years.add(current);
+        }
+        current.count++;
+        current.sum += length;
+    }
+
+    /**
+     * Get number of cycles, counted as number of period starts
+     */
+    int getCycleCount() {
+        return starts;
+    }
+
+    /**
+     * Get average cycle length, rounded down as in the predictions
+     */
+    int getCycleAverage() {
+        return cycles.getCount() > 0 ? cycles.getSum() / cycles.getCount() : 0;
+    }
+
+    /**
+     * Get shortest of the last cycles, as used for the predictions
+     */
+    int getCycleShortest() {
+        return window.getShortest(28);
+    }
+
+    /**
+     * Get longest of the last cycles, as used for the predictions
+     */
+    int getCycleLongest() {
+        return window.getLongest(28);
+    }
+
+    /**
+     * Get statistics for each year with cycles, in the order of the years
+     */
+    List<YearStatistics> getYears() {
+        return Collections.unmodifiableList(years);
+    }
+}
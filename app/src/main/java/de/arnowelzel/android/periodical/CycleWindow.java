@@ -0,0 +1,179 @@
+/*
+ * Periodical cycle window class
+ * Copyright (C) 2012-2025 Arno Welzel
+ *
+ * This code is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.arnowelzel.android.periodical;
+
+/**
+ * Statistics for the last cycles in a sliding window
+ *
+ * <br><br><i>Cycle lengths are appended in the order of their dates. If the window is full, the
+ * oldest cycle is removed. Minimum and maximum are kept in monotonic queues and the average is
+ * based on a running sum, so adding and removing a cycle does not depend on the window size.
+ * </i>
+ */
+class CycleWindow {
+    /**
+     * Cycle lengths in a ring buffer, indexed by sequence number modulo capacity
+     */
+    private final int[] lengths;
+    /**
+     * Sequence numbers of cycles which may still become minimum, with increasing lengths
+     */
+    private final int[] minimumQueue;
+    /**
+     * Sequence numbers of cycles which may still become maximum, with decreasing lengths
+     */
+    private final int[] maximumQueue;
+    /**
+     * Head and size of the queues
+     */
+    private int minimumHead, minimumSize;
+    private int maximumHead, maximumSize;
+    /**
+     * Sequence number of the oldest cycle in the window and of the next cycle to be added
+     */
+    private int first, next;
+    /**
+     * Sum of all cycle lengths in the window
+     */
+    private int sum;
+
+    /**
+     * Construct a new empty window
+     *
+     * @param capacity Maximum number of cycles in the window
+     */
+    CycleWindow(int capacity) {
+        lengths = new int[capacity];
+        minimumQueue = new int[capacity];
+        maximumQueue = new int[capacity];
+    }
+
+    /**
+     * Create a copy of this window
+     */
+    CycleWindow copy() {
+        CycleWindow window = new CycleWindow(lengths.length);
+        System.arraycopy(lengths, 0, window.lengths, 0, lengths.length);
+        System.arraycopy(minimumQueue, 0, window.minimumQueue, 0, lengths.length);
+        System.arraycopy(maximumQueue, 0, window.maximumQueue, 0, lengths.length);
+        window.minimumHead = minimumHead;
+        window.minimumSize = minimumSize;
+        window.maximumHead = maximumHead;
+        window.maximumSize = maximumSize;
+        window.first = first;
+        window.next = next;
+        window.sum = sum;
+        return window;
+    }
+
+    /**
+     * Add a cycle, the oldest cycle is removed if the window is full
+     *
+     * @param length Length of the cycle in days
+     */
+    void add(int length) {
+        if (size() == lengths.length) {
+            removeOldest();
+        }
+
+        int capacity = lengths.length;
+        int sequence = next++;
+        lengths[sequence % capacity] = length;
+        sum += length;
+
+        // Cycles which are not shorter than the new one can never become the minimum again
+        while (minimumSize > 0
+                && lengths[minimumQueue[(minimumHead + minimumSize - 1) % capacity] % capacity] >= length) {
+            minimumSize--;
+        }
+        minimumQueue[(minimumHead + minimumSize) % capacity] = sequence;
+        minimumSize++;
+
+        // Cycles which are not longer than the new one can never become the maximum again
+        while (maximumSize > 0
+                && lengths[maximumQueue[(maximumHead + maximumSize - 1) % capacity] % capacity] <= length) {
+            maximumSize--;
+        }
+        maximumQueue[(maximumHead + maximumSize) % capacity] = sequence;
+        maximumSize++;
+    }
+
+    /**
+     * Remove the oldest cycle
+     */
+    void removeOldest() {
+        if (size() == 0) {
+            return;
+        }
+
+        int capacity = lengths.length;
+        int sequence = first++;
+        sum -= lengths[sequence % capacity];
+        if (minimumQueue[minimumHead] == sequence) {
+            minimumHead = (minimumHead + 1) % capacity;
+            minimumSize--;
+        }
+        if (maximumQueue[maximumHead] == sequence) {
+            maximumHead = (maximumHead + 1) % capacity;
+            maximumSize--;
+        }
+    }
+
+    /**
+     * Get number of cycles in the window
+     */
+    int size() {
+        return next - first;
+    }
+
+    /**
+     * Get sum of all cycle lengths in the window
+     */
+    int getSum() {
+        return sum;
+    }
+
+    /**
+     * Get length of the shortest cycle in the window
+     *
+     * @param fallback Value to return if the window is empty
+     */
+    int getShortest(int fallback) {
+        return minimumSize > 0 ? lengths[minimumQueue[minimumHead] % lengths.length] : fallback;
+    }
+
+    /**
+     * Get length of the longest cycle in the window
+     *
+     * @param fallback Value to return if the window is empty
+     */
+    int getLongest(int fallback) {
+        return maximumSize > 0 ? lengths[maximumQueue[maximumHead] % lengths.length] : fallback;
+    }
+
+    /**
+     * Get average cycle length in the window
+     *
+     * @param fallback Value to return if the window is empty
+     */
+    int getAverage(int fallback) {
+        int size = size();
+        return size > 0 ? sum / size : fallback;
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Periodical day entry class
+ * Copyright (C) 2012-2025 Arno Welzel
+ *
+ * This code is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.arnowelzel.android.periodical;
+
+import java.util.GregorianCalendar;
+
+/**
+ * Local helper to manage calculated calendar entries
+ *
+ * <br><br><i>Used by the calculation, the database and the UI, so it is kept independent
+ * of any of them.</i>
+ */
+public class DayEntry {
+    final static int EMPTY = 0;
+    final static int PERIOD_START = 1;
+    final static int PERIOD_CONFIRMED = 2;
+    final static int PERIOD_PREDICTED = 3;
+    final static int FERTILITY_PREDICTED = 4;
+    final static int OVULATION_PREDICTED = 5;
+    final static int FERTILITY_FUTURE = 6;
+    final static int OVULATION_FUTURE = 7;
+    final static int INFERTILE_PREDICTED = 8;
+    final static int INFERTILE_FUTURE = 9;
+    final static int FERTILITY_STANDARD_PREDICTED = 10;
+    final static int FERTILITY_STANDARD_FUTURE = 11;
+    final static int SYMPTOM_INTERCOURSE = 1;
+    final static int SYMPTOM_MAX = 30;
+    int type;
+    /**
+     * Day of the entry as number of days since 1970-01-01
+     */
+    final int eventday;
+    int dayofcycle;
+    int intensity;
+    String notes;
+    /**
+     * Symptoms as bitmask, bit n is set for symptom n (1 to SYMPTOM_MAX)
+     */
+    int symptoms;
+    /**
+     * Calendar date of the entry, only created when needed
+     */
+    private GregorianCalendar date;
+
+    /**
+     * Construct a new day entry with parameters
+     *
+     * @param type       Entry type (DayEntry.EMPTY, DayEntry.PERIOD_START, DayEntry.PERIOD_CONFIRMED, ...)
+     * @param eventday   Entry date as number of days since 1970-01-01
+     * @param dayofcycle Day within current cycle (beginning with 1)
+     * @param intensity  Intensity of the period (1-4)
+     */
+    DayEntry(int type, int eventday, int dayofcycle, int intensity) {
+        this.type = type;
+        this.eventday = eventday;
+        this.dayofcycle = dayofcycle;
+        this.intensity = intensity;
+        this.notes = "";
+        this.symptoms = 0;
+    }
+
+    /**
+     * Construct a new empty day entry
+     *
+     * @param eventday Entry date as number of days since 1970-01-01
+     */
+    DayEntry(int eventday) {
+        this(EMPTY, eventday, 0, 1);
+    }
+
+    /**
+     * Get the date of the entry as calendar for the UI
+     */
+    GregorianCalendar getDate() {
+        if (date == null) {
+            date = DayStore.calendar(eventday);
+        }
+        return date;
+    }
+
+    /**
+     * Check if a specific symptom is set
+     *
+     * @param symptom Symptom (1 to SYMPTOM_MAX)
+     */
+    boolean hasSymptom(int symptom) {
+        return (symptoms & (1 << symptom)) != 0;
+    }
+
+    /**
+     * Set a specific symptom
+     *
+     * @param symptom Symptom (1 to SYMPTOM_MAX)
+     */
+    void addSymptom(int symptom) {
+        if (symptom >= 1 && symptom <= SYMPTOM_MAX) {
+            symptoms |= 1 << symptom;
+        }
+    }
+}
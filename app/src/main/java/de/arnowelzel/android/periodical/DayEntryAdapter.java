@@ -37,9 +37,9 @@ import static java.lang.String.*;
 /**
  * Custom adapter to populate calendar entry list items
  */
-class DayEntryAdapter extends ArrayAdapter<PeriodicalDatabase.DayEntry> {
+class DayEntryAdapter extends ArrayAdapter<DayEntry> {
     private final Context context;
-    private final List<PeriodicalDatabase.DayEntry> entryList;
+    private final List<DayEntry> entryList;
     private final String packageName;
     private final Resources resources;
 
@@ -51,7 +51,7 @@ class DayEntryAdapter extends ArrayAdapter<PeriodicalDatabase.DayEntry> {
      * @param packageName Application package from getPackageName()
      * @param resources   Global resources from getResources()
      */
-    public DayEntryAdapter(Context context, List<PeriodicalDatabase.DayEntry> list, String packageName, Resources resources) {
+    public DayEntryAdapter(Context context, List<DayEntry> list, String packageName, Resources resources) {
         super(context, 0, list);
 
         this.context = context;
@@ -76,7 +76,7 @@ class DayEntryAdapter extends ArrayAdapter<PeriodicalDatabase.DayEntry> {
         if (listItem == null)
             listItem = LayoutInflater.from(context).inflate(R.layout.listdetailsitem, parent, false);
 
-        PeriodicalDatabase.DayEntry currentEntry = entryList.get(position);
+        DayEntry currentEntry = entryList.get(position);
 
         StringBuilder textEvents = new StringBuilder();
         StringBuilder textMood = new StringBuilder();
@@ -113,7 +113,7 @@ class DayEntryAdapter extends ArrayAdapter<PeriodicalDatabase.DayEntry> {
             String resName = format(Locale.ENGLISH,"label_details_ev%d", eventId);
             @SuppressLint("DiscouragedApi") int resId = resources.getIdentifier(resName, "string", packageName);
             if (resId != 0) {
-                if (currentEntry.symptoms.contains(eventId)) {
+                if (currentEntry.hasSymptom(eventId)) {
                     if (num < 2) {
                         if (textEvents.length() > 0) textEvents.append("\n");
                         textEvents.append("• ").append(resources.getString(resId));
@@ -136,27 +136,27 @@ class DayEntryAdapter extends ArrayAdapter<PeriodicalDatabase.DayEntry> {
 
         view = listItem.findViewById(R.id.item_date);
         switch (currentEntry.type) {
-            case PeriodicalDatabase.DayEntry.PERIOD_START:
+            case DayEntry.PERIOD_START:
                 view.setText(
-                        dateFormat.format(currentEntry.date.getTime()) + " — " +
+                        dateFormat.format(currentEntry.getDate().getTime()) + " — " +
                                 resources.getString(R.string.event_periodstart));
                 break;
-            case PeriodicalDatabase.DayEntry.PERIOD_CONFIRMED:
+            case DayEntry.PERIOD_CONFIRMED:
                 view.setText(
-                        dateFormat.format(currentEntry.date.getTime()) + " — " +
+                        dateFormat.format(currentEntry.getDate().getTime()) + " — " +
                                 format(
                                         resources.getString(R.string.label_period_day),
                                         currentEntry.dayofcycle));
                 break;
             default:
-                view.setText(dateFormat.format(currentEntry.date.getTime()));
+                view.setText(dateFormat.format(currentEntry.getDate().getTime()));
                 break;
         }
 
         View viewIntensity = listItem.findViewById(R.id.block_intensity);
         view = listItem.findViewById(R.id.item_intensity);
-        if (currentEntry.type == PeriodicalDatabase.DayEntry.PERIOD_START ||
-                currentEntry.type == PeriodicalDatabase.DayEntry.PERIOD_CONFIRMED) {
+        if (currentEntry.type == DayEntry.PERIOD_START ||
+                currentEntry.type == DayEntry.PERIOD_CONFIRMED) {
             String intensity = "?";
             switch (currentEntry.intensity) {
                 case 1:
@@ -0,0 +1,321 @@
+/*
+ * Periodical day store class
+ * Copyright (C) 2012-2025 Arno Welzel
+ *
+ * This code is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.arnowelzel.android.periodical;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.HashMap;
+import java.util.Iterator;
+
+/**
+ * Date indexed store for calculated day entries
+ *
+ * <br><br><i>The values of all days are kept in parallel primitive arrays indexed by the day
+ * offset to the first day, so a long history does not need one object per day. Notes are
+ * only stored for the few days which have them. {@link DayEntry} objects are only created
+ * when a specific day is requested.</i>
+ */
+class DayStore {
+    /**
+     * Type value of slots without an entry
+     */
+    private final static byte NONE = -1;
+
+    /**
+     * Entry types indexed by (epoch day - first day), {@link #NONE} if there is no entry
+     */
+    private byte[] types;
+    /**
+     * Intensities indexed by (epoch day - first day)
+     */
+    private byte[] intensities;
+    /**
+     * Days of cycle indexed by (epoch day - first day)
+     */
+    private short[] daysOfCycle;
+    /**
+     * Symptom bitmasks indexed by (epoch day - first day)
+     */
+    private int[] symptoms;
+    /**
+     * Notes indexed by epoch day, only days with notes are included
+     */
+    private HashMap<Integer, String> notes;
+    /**
+     * Epoch day of the first slot in the arrays
+     */
+    private int firstDay;
+    /**
+     * Number of slots in use
+     */
+    private int length;
+
+    /**
+     * Construct a new empty store
+     */
+    DayStore() {
+        types = new byte[0];
+        intensities = new byte[0];
+        daysOfCycle = new short[0];
+        symptoms = new int[0];
+        notes = new HashMap<>();
+        firstDay = 0;
+        length = 0;
+    }
+
+    /**
+     * Create a copy of this store
+     *
+     * @return The new store
+     */
+    DayStore copy() {
+        DayStore store = new DayStore();
+        store.types = Arrays.copyOf(types, length);
+        store.intensities = Arrays.copyOf(intensities, length);
+        store.daysOfCycle = Arrays.copyOf(daysOfCycle, length);
+        store.symptoms = Arrays.copyOf(symptoms, length);
+        store.notes = new HashMap<>(notes);
+        store.firstDay = firstDay;
+        store.length = length;
+        return store;
+    }
+
+    /**
+     * Remove all entries
+     */
+    void clear() {
+        notes.clear();
+        length = 0;
+    }
+
+    /**
+     * Add an entry, if there is no entry for this day yet
+     *
+     * @param epochDay   Day as number of days since 1970-01-01
+     * @param type       Entry type
+     * @param dayofcycle Day of the cycle
+     * @param intensity  Intensity of the period
+     */
+    void put(int epochDay, int type, int dayofcycle, int intensity) {
+        int index = slot(epochDay);
+        if (types[index] == NONE) {
+            types[index] = (byte) type;
+            intensities[index] = (byte) intensity;
+            daysOfCycle[index] = (short) dayofcycle;
+            symptoms[index] = 0;
+        }
+    }
+
+    /**
+     * Set the symptoms of a day, an empty entry is added if there is no entry for this day yet
+     *
+     * @param epochDay Day as number of days since 1970-01-01
+     * @param value    Symptom bitmask
+     */
+    void putSymptoms(int epochDay, int value) {
+        put(epochDay, DayEntry.EMPTY, 0, 0);
+        symptoms[epochDay - firstDay] = value;
+    }
+
+    /**
+     * Set the notes of a day, an empty entry is added if there is no entry for this day yet
+     *
+     * @param epochDay Day as number of days since 1970-01-01
+     * @param value    Notes
+     */
+    void putNotes(int epochDay, String value) {
+        put(epochDay, DayEntry.EMPTY, 0, 0);
+        if (value == null || value.isEmpty()) {
+            notes.remove(epochDay);
+        } else {
+            notes.put(epochDay, value);
+        }
+    }
+
+    /**
+     * Get the array index for a day, the arrays are extended if needed
+     *
+     * @param epochDay Day as number of days since 1970-01-01
+     * @return Index of the day
+     */
+    private int slot(int epochDay) {
+        if (length == 0) {
+            firstDay = epochDay;
+        } else if (epochDay < firstDay) {
+            // Move existing values to make room at the beginning
+            int shift = firstDay - epochDay;
+            resize(Math.max(types.length, length + shift), shift);
+            Arrays.fill(types, 0, shift, NONE);
+            firstDay = epochDay;
+            length += shift;
+        }
+
+        int index = epochDay - firstDay;
+        if (index >= length) {
+            if (index >= types.length) {
+                resize(Math.max(index + 1, types.length * 2), 0);
+            }
+            Arrays.fill(types, length, index + 1, NONE);
+            length = index + 1;
+        }
+        return index;
+    }
+
+    /**
+     * Replace the arrays by new ones, keeping the slots in use
+     *
+     * @param capacity New size of the arrays
+     * @param shift    Number of slots to insert at the beginning
+     */
+    private void resize(int capacity, int shift) {
+        byte[] typesNew = new byte[capacity];
+        byte[] intensitiesNew = new byte[capacity];
+        short[] daysOfCycleNew = new short[capacity];
+        int[] symptomsNew = new int[capacity];
+        System.arraycopy(types, 0, typesNew, shift, length);
+        System.arraycopy(intensities, 0, intensitiesNew, shift, length);
+        System.arraycopy(daysOfCycle, 0, daysOfCycleNew, shift, length);
+        System.arraycopy(symptoms, 0, symptomsNew, shift, length);
+        types = typesNew;
+        intensities = intensitiesNew;
+        daysOfCycle = daysOfCycleNew;
+        symptoms = symptomsNew;
+    }
+
+    /**
+     * Remove all entries after a specific day
+     *
+     * @param epochDay Last day to be kept
+     */
+    void truncate(int epochDay) {
+        int lengthNew = epochDay - firstDay + 1;
+        if (lengthNew < 0) lengthNew = 0;
+        if (lengthNew < length) {
+            length = lengthNew;
+            Iterator<Integer> iterator = notes.keySet().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next() > epochDay) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Check if there is an entry for a specific day
+     *
+     * @param epochDay Day as number of days since 1970-01-01
+     */
+    boolean contains(int epochDay) {
+        int index = epochDay - firstDay;
+        return index >= 0 && index < length && types[index] != NONE;
+    }
+
+    /**
+     * Get entry type for a specific day
+     *
+     * @param epochDay Day as number of days since 1970-01-01
+     * @return The entry type or {@link DayEntry#EMPTY} if there is no entry for this day
+     */
+    int getType(int epochDay) {
+        return contains(epochDay) ? types[epochDay - firstDay] : DayEntry.EMPTY;
+    }
+
+    /**
+     * Get entry types for a range of days
+     *
+     * @param epochDay First day as number of days since 1970-01-01
+     * @param target   Array to receive the types of target.length days, days without an entry
+     *                 get {@link DayEntry#EMPTY}
+     */
+    void getTypes(int epochDay, byte[] target) {
+        Arrays.fill(target, (byte) DayEntry.EMPTY);
+
+        int first = Math.max(epochDay, firstDay);
+        int last = Math.min(epochDay + target.length, firstDay + length);
+        if (first >= last) {
+            return;
+        }
+        System.arraycopy(types, first - firstDay, target, first - epochDay, last - first);
+        for (int index = first - epochDay; index < last - epochDay; index++) {
+            if (target[index] == NONE) {
+                target[index] = DayEntry.EMPTY;
+            }
+        }
+    }
+
+    /**
+     * Get entry for a specific day
+     *
+     * <br><br><i>A new entry is created on every call, changes to it are not stored.</i>
+     *
+     * @param epochDay Day as number of days since 1970-01-01
+     * @return The entry or null if there is no entry for this day
+     */
+    DayEntry get(int epochDay) {
+        if (!contains(epochDay)) {
+            return null;
+        }
+        int index = epochDay - firstDay;
+        DayEntry entry = new DayEntry(types[index], epochDay, daysOfCycle[index], intensities[index]);
+        entry.symptoms = symptoms[index];
+        String value = notes.get(epochDay);
+        if (value != null) {
+            entry.notes = value;
+        }
+        return entry;
+    }
+
+    /**
+     * Convert a calendar date to the number of days since 1970-01-01
+     *
+     * @param date Date to convert, the time of day is ignored
+     * @return The epoch day
+     */
+    static int epochDay(Calendar date) {
+        return epochDay(date.get(Calendar.YEAR),
+                date.get(Calendar.MONTH) + 1,
+                date.get(Calendar.DAY_OF_MONTH));
+    }
+
+    /**
+     * Convert a date to the number of days since 1970-01-01
+     *
+     * @param year  Year including century
+     * @param month Month (1-12)
+     * @param day   Day of the month (1-31)
+     * @return The epoch day
+     */
+    static int epochDay(int year, int month, int day) {
+        return (int) LocalDate.of(year, month, day).toEpochDay();
+    }
+
+    /**
+     * Convert a number of days since 1970-01-01 to a calendar date
+     *
+     * @param epochDay The epoch day
+     * @return Calendar set to the beginning of the day in the local time zone
+     */
+    static GregorianCalendar calendar(int epochDay) {
+        LocalDate date = LocalDate.ofEpochDay(epochDay);
+        return new GregorianCalendar(date.getYear(), date.getMonthValue() - 1, date.getDayOfMonth());
+    }
+}
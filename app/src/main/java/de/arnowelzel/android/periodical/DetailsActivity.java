@@ -40,17 +40,19 @@ import androidx.appcompat.widget.AppCompatCheckBox;
 import androidx.appcompat.widget.Toolbar;
 
 import java.text.DateFormat;
+import java.util.GregorianCalendar;
 import java.util.Locale;
 
-import static de.arnowelzel.android.periodical.PeriodicalDatabase.DayEntry.PERIOD_CONFIRMED;
-import static de.arnowelzel.android.periodical.PeriodicalDatabase.DayEntry.PERIOD_START;
+import static de.arnowelzel.android.periodical.DayEntry.PERIOD_CONFIRMED;
+import static de.arnowelzel.android.periodical.DayEntry.PERIOD_START;
 
 /**
  * Activity to handle the "Help" command
  */
-public class DetailsActivity extends AppCompatActivity implements View.OnClickListener, TextWatcher {
+public class DetailsActivity extends AppCompatActivity implements View.OnClickListener, TextWatcher, DetailsWriteQueue.Listener {
     private PeriodicalDatabase dbMain;
-    private PeriodicalDatabase.DayEntry entry;
+    private DetailsWriteQueue writeQueue;
+    private DayEntry entry;
     private RadioButton buttonPeriodIntensity1;
     private RadioButton buttonPeriodIntensity2;
     private RadioButton buttonPeriodIntensity3;
@@ -81,14 +83,28 @@ public class DetailsActivity extends AppCompatActivity implements View.OnClickLi
         int month = intent.getIntExtra("month", 1);
         int day = intent.getIntExtra("day", 1);
 
-        dbMain = new PeriodicalDatabase(context);
-        dbMain.loadCalculatedData();
-        entry = dbMain.getEntryWithDetails(year, month, day);
-
         // Set header using the entry date
         DateFormat dateFormat = DateFormat.getDateInstance(DateFormat.LONG);
         ((TextView) findViewById(R.id.labelDetailsHeader)).setText(
-                String.format("%s", dateFormat.format(entry.date.getTime())));
+                String.format("%s", dateFormat.format(
+                        new GregorianCalendar(year, month - 1, day).getTime())));
+
+        // Load the details in the background, this includes all changes which are still queued
+        dbMain = AppPeriodical.acquireDatabase(context);
+        writeQueue = new DetailsWriteQueue(dbMain, this);
+        dbMain.getEntryWithDetailsAsync(year, month, day, this::showEntry);
+    }
+
+    /**
+     * Show the details of the day and enable editing
+     *
+     * @param entry The day including all details
+     */
+    private void showEntry(DayEntry entry) {
+        if (isDestroyed()) {
+            return;
+        }
+        this.entry = entry;
 
         // Set period status
         RadioButton buttonPeriodYes = findViewById(R.id.periodYes);
@@ -195,7 +211,7 @@ public class DetailsActivity extends AppCompatActivity implements View.OnClickLi
                 option.setTextSize(18);
                 option.setText(resId);
                 option.setId(resId);
-                if (entry.symptoms.contains(eventId)) option.setChecked(true);
+                if (entry.hasSymptom(eventId)) option.setChecked(true);
                 option.setOnClickListener(this);
                 if (num < 2) {
                     groupEvents.addView(option);
@@ -230,53 +246,46 @@ public class DetailsActivity extends AppCompatActivity implements View.OnClickLi
     public void onClick(View v) {
         int id = v.getId();
         if (id == R.id.periodYes) {
-            dbMain.addPeriod(entry.date);
-            entry.type = PeriodicalDatabase.DayEntry.PERIOD_START;
-            databaseChanged();
+            writeQueue.execute(() -> dbMain.addPeriod(entry.getDate()), entry.getDate());
+            entry.type = DayEntry.PERIOD_START;
             buttonPeriodIntensity1.setEnabled(true);
             buttonPeriodIntensity2.setEnabled(true);
             buttonPeriodIntensity3.setEnabled(true);
             buttonPeriodIntensity4.setEnabled(true);
         } else if (id == R.id.periodNo) {
-            dbMain.removePeriod(entry.date);
-            entry.type = PeriodicalDatabase.DayEntry.EMPTY;
-            databaseChanged();
+            writeQueue.execute(() -> dbMain.removePeriod(entry.getDate()), entry.getDate());
+            entry.type = DayEntry.EMPTY;
             buttonPeriodIntensity1.setEnabled(false);
             buttonPeriodIntensity2.setEnabled(false);
             buttonPeriodIntensity3.setEnabled(false);
             buttonPeriodIntensity4.setEnabled(false);
         } else if (id == R.id.periodIntensity1) {
             entry.intensity = 1;
-            dbMain.addEntryDetails(entry);
-            databaseChanged();
+            writeQueue.post(entry);
         } else if (id == R.id.periodIntensity2) {
             entry.intensity = 2;
-            dbMain.addEntryDetails(entry);
-            databaseChanged();
+            writeQueue.post(entry);
         } else if (id == R.id.periodIntensity3) {
             entry.intensity = 3;
-            dbMain.addEntryDetails(entry);
-            databaseChanged();
+            writeQueue.post(entry);
         } else if (id == R.id.periodIntensity4) {
             entry.intensity = 4;
-            dbMain.addEntryDetails(entry);
-            databaseChanged();
+            writeQueue.post(entry);
         } else {
             String packageName = getPackageName();
             int resId;
-            entry.symptoms.clear();
+            entry.symptoms = 0;
             int num = 1;
             while (num < 24) {
                 String resName = String.format(Locale.ENGLISH, "label_details_ev%d", num);
                 resId = getResources().getIdentifier(resName, "string", packageName);
                 if (resId != 0) {
                     CheckBox option = findViewById(resId);
-                    if (option.isChecked()) entry.symptoms.add(num);
+                    if (option.isChecked()) entry.addSymptom(num);
                 }
                 num++;
             }
-            dbMain.addEntryDetails(entry);
-            databaseChanged();
+            writeQueue.post(entry);
         }
     }
 
@@ -294,8 +303,19 @@ public class DetailsActivity extends AppCompatActivity implements View.OnClickLi
     @Override
     public void afterTextChanged(Editable editable) {
         entry.notes = ((MultiAutoCompleteTextView) findViewById(R.id.editNotes)).getText().toString();
-        dbMain.addEntryDetails(entry);
-        databaseChanged();
+        writeQueue.post(entry);
+    }
+
+    /**
+     * Called when the activity is paused
+     */
+    @Override
+    protected void onPause() {
+        super.onPause();
+
+        // Start writing all changes, the calendar gets them with the next calculation result
+        if (writeQueue != null)
+            writeQueue.flush();
     }
 
     /**
@@ -305,16 +325,27 @@ public class DetailsActivity extends AppCompatActivity implements View.OnClickLi
     protected void onDestroy() {
         super.onDestroy();
 
+        // The queue does not report changes anymore, so notify about those still being written
+        if (writeQueue != null && writeQueue.shutdown())
+            databaseChanged();
         if (dbMain != null)
-            dbMain.close();
+            AppPeriodical.releaseDatabase(this);
+    }
+
+    /**
+     * Handler for changes written by the write queue
+     */
+    @Override
+    public void onDetailsWritten(GregorianCalendar date) {
+        databaseChanged();
     }
 
     /**
      * Helper to handle changes in the database
+     *
+     * <br><br><i>The calculation is already updated by the write queue.</i>
      */
     private void databaseChanged() {
-        dbMain.loadCalculatedData();
-
         BackupManager bm = new BackupManager(this);
         bm.dataChanged();
     }
@@ -0,0 +1,213 @@
+/*
+ * Periodical details write queue class
+ * Copyright (C) 2012-2025 Arno Welzel
+ *
+ * This code is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.arnowelzel.android.periodical;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.ArrayList;
+import java.util.GregorianCalendar;
+import java.util.LinkedHashMap;
+
+/**
+ * Background queue for changes of day details
+ *
+ * <br><br><i>Rapid changes of the same day (e.g. typing notes) are collected and written
+ * together after a short delay. All writes are done in order on one background thread and
+ * the listener is only called once for all changes written in the meantime. The background
+ * thread of the database is used and every write is followed by a new calculation, so
+ * results delivered by the database afterwards always include the changes.</i>
+ */
+class DetailsWriteQueue {
+    /**
+     * Delay in milliseconds before pending details are written
+     */
+    private final static long WRITE_DELAY = 500;
+
+    /**
+     * Listener for completed writes
+     */
+    interface Listener {
+        /**
+         * Called on the main thread after changes were written to the database and
+         * the calculation was updated
+         *
+         * @param date Earliest day which was changed
+         */
+        void onDetailsWritten(GregorianCalendar date);
+    }
+
+    private final PeriodicalDatabase db;
+    private final Listener listener;
+    private final Handler handler;
+    /**
+     * Details not yet written, indexed by epoch day
+     */
+    private final LinkedHashMap<Integer, DayEntry> pending = new LinkedHashMap<>();
+    /**
+     * Earliest day written since the last notification or null if there is none
+     */
+    private Integer changedDay = null;
+    /**
+     * Number of writes which were finished since the last notification
+     */
+    private int finished = 0;
+    /**
+     * Number of writes which were started but not yet notified, only used on the main thread
+     */
+    private int writing = 0;
+    /**
+     * Flag if the queue was shut down, only used on the main thread
+     */
+    private boolean closed = false;
+
+    private final Runnable flushRunnable = this::flush;
+    private final Runnable notifyRunnable = this::notifyListener;
+
+    /**
+     * Construct a new queue
+     *
+     * @param db       Database to write to
+     * @param listener Listener to be called after changes were written
+     */
+    DetailsWriteQueue(PeriodicalDatabase db, Listener listener) {
+        this.db = db;
+        this.listener = listener;
+        this.handler = new Handler(Looper.getMainLooper());
+    }
+
+    /**
+     * Queue the details of a day to be written after a short delay
+     *
+     * <br><br><i>If details for the same day are still pending, they will be replaced.</i>
+     *
+     * @param entry Entry with the details to store
+     */
+    void post(DayEntry entry) {
+        if (closed) {
+            return;
+        }
+
+        // Keep a copy, since the entry may be changed again before it is written
+        DayEntry copy = new DayEntry(entry.type, entry.eventday, entry.dayofcycle, entry.intensity);
+        copy.notes = entry.notes;
+        copy.symptoms = entry.symptoms;
+
+        pending.put(entry.eventday, copy);
+        handler.removeCallbacks(flushRunnable);
+        handler.postDelayed(flushRunnable, WRITE_DELAY);
+    }
+
+    /**
+     * Queue a database change which must be done after all pending details
+     *
+     * @param write Change to be done
+     * @param date  Day which is changed
+     */
+    void execute(Runnable write, GregorianCalendar date) {
+        if (closed) {
+            return;
+        }
+
+        flush();
+        submit(write, DayStore.epochDay(date));
+    }
+
+    /**
+     * Start writing all pending details without further delay
+     */
+    void flush() {
+        handler.removeCallbacks(flushRunnable);
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        final ArrayList<DayEntry> entries = new ArrayList<>(pending.values());
+        int eventdayFirst = Integer.MAX_VALUE;
+        for (int eventday : pending.keySet()) {
+            if (eventday < eventdayFirst) eventdayFirst = eventday;
+        }
+        pending.clear();
+
+        submit(() -> db.addEntryDetails(entries), eventdayFirst);
+    }
+
+    /**
+     * Write all pending details and stop the queue
+     *
+     * <br><br><i>This does not wait for the background thread. Writes which were already
+     * started will still be done, but the listener will not be called anymore and all
+     * further changes are ignored.</i>
+     *
+     * @return true if there are changes for which the listener was not called yet
+     */
+    boolean shutdown() {
+        flush();
+        closed = true;
+        handler.removeCallbacks(notifyRunnable);
+        return writing > 0;
+    }
+
+    /**
+     * Start a write on the background thread of the database
+     *
+     * @param write    Change to be done
+     * @param eventday Earliest day which is changed
+     */
+    private void submit(Runnable write, int eventday) {
+        writing++;
+        db.execute(() -> {
+            write.run();
+            db.updateCalculatedData(DayStore.calendar(eventday));
+            written(eventday);
+        });
+    }
+
+    /**
+     * Remember a written day and schedule the notification on the main thread
+     *
+     * @param eventday Day which was changed
+     */
+    private void written(int eventday) {
+        synchronized (this) {
+            if (changedDay == null || eventday < changedDay) {
+                changedDay = eventday;
+            }
+            finished++;
+        }
+        handler.removeCallbacks(notifyRunnable);
+        handler.post(notifyRunnable);
+    }
+
+    /**
+     * Call the listener for all changes written since the last notification
+     */
+    private void notifyListener() {
+        Integer eventday;
+        synchronized (this) {
+            eventday = changedDay;
+            changedDay = null;
+            writing -= finished;
+            finished = 0;
+        }
+        if (!closed && eventday != null) {
+            listener.onDetailsWritten(DayStore.calendar(eventday));
+        }
+    }
+}
@@ -33,7 +33,10 @@ import androidx.appcompat.app.ActionBar;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.Toolbar;
 
+import java.util.List;
+
 public class InfoActivity extends AppCompatActivity {
+    private PeriodicalDatabase dbMain;
 
     /* Launchers for activities with result */
     private ActivityResultLauncher<Intent> pickDateResultLauncher;
@@ -51,21 +54,9 @@ public class InfoActivity extends AppCompatActivity {
         // Set up view
         setContentView(R.layout.info);
 
-        // Calculate data
-        PeriodicalDatabase dbMain = new PeriodicalDatabase(context);
-        dbMain.loadCalculatedData();
-
-        TextView viewCountEntries = findViewById(R.id.infoCountEntries);
-        viewCountEntries.setText(String.format("%d", dbMain.cycleCount));
-
-        TextView viewAverage = findViewById(R.id.infoDurationAverage);
-        viewAverage.setText(String.format("%d", dbMain.cycleAverage));
-
-        TextView viewShortest = findViewById(R.id.infoDurationShortest);
-        viewShortest.setText(String.format("%d", dbMain.cycleShortest));
-
-        TextView viewLongest = findViewById(R.id.infoDurationLongest);
-        viewLongest.setText(String.format("%d", dbMain.cycleLongest));
+        // Get statistics in the background and show the result when it is available
+        dbMain = AppPeriodical.acquireDatabase(context);
+        dbMain.getStatisticsAsync(this::showStatistics);
 
         // Register activity result launchers
         pickDateResultLauncher = registerForActivityResult(
@@ -85,6 +76,76 @@ public class InfoActivity extends AppCompatActivity {
         actionBar.setDisplayHomeAsUpEnabled(true);
     }
 
+    /**
+     * Called when the activity is destroyed
+     */
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+
+        if (dbMain != null)
+            AppPeriodical.releaseDatabase(this);
+    }
+
+    /**
+     * Show statistics of all cycles
+     *
+     * @param statistics Statistics to show
+     */
+    @SuppressLint("DefaultLocale")
+    private void showStatistics(CycleStatistics statistics) {
+        if (isDestroyed()) {
+            return;
+        }
+
+        TextView viewCountEntries = findViewById(R.id.infoCountEntries);
+        viewCountEntries.setText(String.format("%d", statistics.getCycleCount()));
+
+        TextView viewAverage = findViewById(R.id.infoDurationAverage);
+        viewAverage.setText(String.format("%d", statistics.getCycleAverage()));
+
+        TextView viewShortest = findViewById(R.id.infoDurationShortest);
+        viewShortest.setText(String.format("%d", statistics.getCycleShortest()));
+
+        TextView viewLongest = findViewById(R.id.infoDurationLongest);
+        viewLongest.setText(String.format("%d", statistics.getCycleLongest()));
+
+        CycleStatistics.LengthStatistics cycles = statistics.cycles;
+
+        TextView viewMedian = findViewById(R.id.infoDurationMedian);
+        viewMedian.setText(String.format("%d", cycles.getMedian()));
+
+        TextView viewDeviation = findViewById(R.id.infoDurationDeviation);
+        viewDeviation.setText(String.format("%.1f", cycles.getStandardDeviation()));
+
+        TextView viewRange = findViewById(R.id.infoDurationRange);
+        viewRange.setText(String.format("%d\u2013%d", cycles.getPercentile(10), cycles.getPercentile(90)));
+
+        CycleStatistics.LengthStatistics periods = statistics.periods;
+
+        TextView viewPeriodAverage = findViewById(R.id.infoPeriodAverage);
+        viewPeriodAverage.setText(String.format("%.1f", periods.getMean()));
+
+        TextView viewPeriodRange = findViewById(R.id.infoPeriodRange);
+        viewPeriodRange.setText(String.format("%d\u2013%d", periods.getShortest(), periods.getLongest()));
+
+        // Average cycle for each year, the latest first
+        StringBuilder years = new StringBuilder();
+        List<CycleStatistics.YearStatistics> yearList = statistics.getYears();
+        for (int index = yearList.size() - 1; index >= 0; index--) {
+            CycleStatistics.YearStatistics year = yearList.get(index);
+            if (years.length() > 0) {
+                years.append('\n');
+            }
+            years.append(getString(R.string.info_year, year.year, year.getAverage(), year.count));
+        }
+        if (years.length() == 0) {
+            years.append(getString(R.string.info_no_cycles));
+        }
+        TextView viewYears = findViewById(R.id.infoYears);
+        viewYears.setText(years);
+    }
+
     /**
      * Handler for ICS "home" button
      */
@@ -36,8 +36,7 @@ import androidx.preference.PreferenceManager;
 
 import java.util.Calendar;
 import java.util.Iterator;
-
-import de.arnowelzel.android.periodical.PeriodicalDatabase.DayEntry;
+import java.util.List;
 
 /**
  * Activity to handle the "List" command
@@ -47,6 +46,10 @@ public class ListActivity extends AppCompatActivity implements AdapterView.OnIte
      * Database for calendar data
      */
     private PeriodicalDatabase dbMain;
+    /**
+     * Period starts shown in the list
+     */
+    private List<DayEntry> dayEntries;
 
     /**
      * Called when activity starts
@@ -58,6 +61,33 @@ public class ListActivity extends AppCompatActivity implements AdapterView.OnIte
         assert context != null;
         super.onCreate(savedInstanceState);
 
+        // Set up view
+        setContentView(R.layout.activity_list);
+
+        // Set up main toolbar
+        Toolbar toolbar = findViewById(R.id.toolbar);
+        setSupportActionBar(toolbar);
+        ActionBar actionBar = getSupportActionBar();
+        assert actionBar != null;
+        actionBar.setDisplayHomeAsUpEnabled(true);
+
+        // Set up database and load the list in the background
+        dbMain = AppPeriodical.acquireDatabase(context);
+        dbMain.loadRawDataAsync(this::showEntries);
+    }
+
+    /**
+     * Show the period starts in the list
+     *
+     * @param dayEntries Period starts, beginning with the latest
+     */
+    private void showEntries(List<DayEntry> dayEntries) {
+        if (isDestroyed()) {
+            return;
+        }
+        this.dayEntries = dayEntries;
+
+        final Context context = getApplicationContext();
         int maximumcyclelength;
 
         SharedPreferences preferences = PreferenceManager.getDefaultSharedPreferences(context);
@@ -67,14 +97,11 @@ public class ListActivity extends AppCompatActivity implements AdapterView.OnIte
             maximumcyclelength = 183;
         }
 
-        // Set up database and string array for the list
-        dbMain = new PeriodicalDatabase(context);
-        dbMain.loadRawData();
-
-        String[] entries = new String[dbMain.dayEntries.size()];
+        // Set up string array for the list
+        String[] entries = new String[dayEntries.size()];
         java.text.DateFormat dateFormat = android.text.format.DateFormat
                 .getDateFormat(context);
-        Iterator<DayEntry> dayIterator = dbMain.dayEntries.iterator();
+        Iterator<DayEntry> dayIterator = dayEntries.iterator();
         int pos = 0;
         DayEntry dayPrevious = null;
         DayEntry day = null;
@@ -87,13 +114,13 @@ public class ListActivity extends AppCompatActivity implements AdapterView.OnIte
             }
             day = dayIterator.next();
 
-            entries[pos] = dateFormat.format(day.date.getTime());
+            entries[pos] = dateFormat.format(day.getDate().getTime());
             if (day.type == DayEntry.PERIOD_START) {
                 entries[pos] = entries[pos] + " — " + getString(R.string.event_periodstart);
                 if (dayPrevious != null) {
                     // If we have a previous day, then update the previous
                     // days length description
-                    int length = day.date.diffDayPeriods(dayPrevious.date);
+                    int length = dayPrevious.eventday - day.eventday;
                     if (length <= maximumcyclelength) {
                         entries[pos - 1] += "\n"
                                 + String.format(
@@ -113,19 +140,9 @@ public class ListActivity extends AppCompatActivity implements AdapterView.OnIte
             entries[pos - 1] += "\n" + getString(R.string.event_periodfirst);
         }
 
-        // Set up view
-        setContentView(R.layout.activity_list);
-
         ListView listView = findViewById(R.id.listview);
         listView.setAdapter(new ArrayAdapter<>(this, R.layout.listitem, entries));
         listView.setOnItemClickListener(this);
-
-        // Set up main toolbar
-        Toolbar toolbar = findViewById(R.id.toolbar);
-        setSupportActionBar(toolbar);
-        ActionBar actionBar = getSupportActionBar();
-        assert actionBar != null;
-        actionBar.setDisplayHomeAsUpEnabled(true);
     }
 
     /**
@@ -134,7 +151,7 @@ public class ListActivity extends AppCompatActivity implements AdapterView.OnIte
     @Override
     protected void onDestroy() {
         // Close database
-        dbMain.close();
+        AppPeriodical.releaseDatabase(this);
 
         super.onDestroy();
     }
@@ -162,12 +179,12 @@ public class ListActivity extends AppCompatActivity implements AdapterView.OnIte
     @Override
     public void onItemClick(AdapterView<?> adapterView, View v, int position, long id) {
         // Determine date of clicked item
-        if (dbMain != null && position >= 0
-                && position < dbMain.dayEntries.size()) {
-            DayEntry selectedEntry = dbMain.dayEntries.get(position);
+        if (dayEntries != null && position >= 0
+                && position < dayEntries.size()) {
+            DayEntry selectedEntry = dayEntries.get(position);
 
-            int month = selectedEntry.date.get(Calendar.MONTH);
-            int year = selectedEntry.date.get(Calendar.YEAR);
+            int month = selectedEntry.getDate().get(Calendar.MONTH);
+            int year = selectedEntry.getDate().get(Calendar.YEAR);
 
             Intent intent = getIntent();
             intent.putExtra("month", Integer.toString(month));
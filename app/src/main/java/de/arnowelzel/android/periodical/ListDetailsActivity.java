@@ -34,8 +34,7 @@ import androidx.appcompat.widget.Toolbar;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Iterator;
-
-import de.arnowelzel.android.periodical.PeriodicalDatabase.DayEntry;
+import java.util.List;
 
 /**
  * Activity to handle the "List, details" command
@@ -45,6 +44,10 @@ public class ListDetailsActivity extends AppCompatActivity implements AdapterVie
      * Database for calendar data
      */
     private PeriodicalDatabase dbMain;
+    /**
+     * Days shown in the list
+     */
+    private List<DayEntry> dayEntries;
 
     /**
      * Called when activity starts
@@ -56,31 +59,43 @@ public class ListDetailsActivity extends AppCompatActivity implements AdapterVie
         assert context != null;
         super.onCreate(savedInstanceState);
 
-        // Set up database and string array for the list
-        dbMain = new PeriodicalDatabase(context);
-        dbMain.loadRawDataWithDetails();
+        // Set up view
+        setContentView(R.layout.activity_list_details);
+
+        // Set up main toolbar
+        Toolbar toolbar = findViewById(R.id.toolbar);
+        setSupportActionBar(toolbar);
+        ActionBar actionBar = getSupportActionBar();
+        assert actionBar != null;
+        actionBar.setDisplayHomeAsUpEnabled(true);
+
+        // Set up database and load the list in the background
+        dbMain = AppPeriodical.acquireDatabase(context);
+        dbMain.loadRawDataWithDetailsAsync(this::showEntries);
+    }
+
+    /**
+     * Show the days in the list
+     *
+     * @param dayEntries All days with data or details in the order of their dates
+     */
+    private void showEntries(List<DayEntry> dayEntries) {
+        if (isDestroyed()) {
+            return;
+        }
+        this.dayEntries = dayEntries;
 
         ArrayList<DayEntry> dayList = new ArrayList<>();
-        Iterator<DayEntry> dayIterator = dbMain.dayEntries.iterator();
+        Iterator<DayEntry> dayIterator = dayEntries.iterator();
         DayEntry day;
         while (dayIterator.hasNext()) {
             day = dayIterator.next();
             dayList.add(0, day);
         }
 
-        // Set up view
-        setContentView(R.layout.activity_list_details);
-
         ListView listView = findViewById(R.id.listview_details);
         listView.setAdapter(new DayEntryAdapter(this, dayList, getPackageName(), getResources()));
         listView.setOnItemClickListener(this);
-
-        // Set up main toolbar
-        Toolbar toolbar = findViewById(R.id.toolbar);
-        setSupportActionBar(toolbar);
-        ActionBar actionBar = getSupportActionBar();
-        assert actionBar != null;
-        actionBar.setDisplayHomeAsUpEnabled(true);
     }
 
     /**
@@ -89,7 +104,7 @@ public class ListDetailsActivity extends AppCompatActivity implements AdapterVie
     @Override
     protected void onDestroy() {
         // Close database
-        dbMain.close();
+        AppPeriodical.releaseDatabase(this);
 
         super.onDestroy();
     }
@@ -117,12 +132,12 @@ public class ListDetailsActivity extends AppCompatActivity implements AdapterVie
     @Override
     public void onItemClick(AdapterView<?> adapterView, View v, int position, long id) {
         // Determine date of clicked item
-        int listsize = dbMain.dayEntries.size();
+        int listsize = dayEntries.size();
         if (position >= 0 && position < listsize) {
-            DayEntry selectedEntry = dbMain.dayEntries.get(listsize - position - 1);
+            DayEntry selectedEntry = dayEntries.get(listsize - position - 1);
 
-            int month = selectedEntry.date.get(Calendar.MONTH);
-            int year = selectedEntry.date.get(Calendar.YEAR);
+            int month = selectedEntry.getDate().get(Calendar.MONTH);
+            int year = selectedEntry.getDate().get(Calendar.YEAR);
 
             Intent intent = getIntent();
             intent.putExtra("month", Integer.toString(month));
@@ -18,7 +18,6 @@
 
 package de.arnowelzel.android.periodical;
 
-import android.annotation.SuppressLint;
 import android.app.Activity;
 import android.app.backup.BackupManager;
 import android.content.Context;
@@ -38,70 +37,46 @@ import androidx.appcompat.app.ActionBarDrawerToggle;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.Toolbar;
 import androidx.fragment.app.FragmentResultListener;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.LinearSnapHelper;
+import androidx.recyclerview.widget.RecyclerView;
 
-import android.view.GestureDetector;
-import android.view.GestureDetector.SimpleOnGestureListener;
 import android.view.MenuItem;
-import android.view.MotionEvent;
 import android.view.View;
 import android.webkit.WebView;
 import android.widget.TextView;
 import android.widget.Toast;
-import android.widget.ViewFlipper;
 
-import java.time.format.DateTimeFormatter;
 import java.util.Calendar;
 import java.util.GregorianCalendar;
 import java.util.Objects;
 
-import static de.arnowelzel.android.periodical.PeriodicalDatabase.DayEntry.PERIOD_CONFIRMED;
-import static de.arnowelzel.android.periodical.PeriodicalDatabase.DayEntry.PERIOD_START;
+import static de.arnowelzel.android.periodical.DayEntry.PERIOD_CONFIRMED;
+import static de.arnowelzel.android.periodical.DayEntry.PERIOD_START;
 
 /**
  * The main activity of the app
  */
 public class MainActivityApp extends AppCompatActivity
         implements NavigationView.OnNavigationItemSelectedListener {
-    private final int[] calButtonIds = {R.id.cal01, R.id.cal02, R.id.cal03,
-            R.id.cal04, R.id.cal05, R.id.cal06, R.id.cal07, R.id.cal08,
-            R.id.cal09, R.id.cal10, R.id.cal11, R.id.cal12, R.id.cal13,
-            R.id.cal14, R.id.cal15, R.id.cal16, R.id.cal17, R.id.cal18,
-            R.id.cal19, R.id.cal20, R.id.cal21, R.id.cal22, R.id.cal23,
-            R.id.cal24, R.id.cal25, R.id.cal26, R.id.cal27, R.id.cal28,
-            R.id.cal29, R.id.cal30, R.id.cal31, R.id.cal32, R.id.cal33,
-            R.id.cal34, R.id.cal35, R.id.cal36, R.id.cal37, R.id.cal38,
-            R.id.cal39, R.id.cal40, R.id.cal41, R.id.cal42};
-    private final int[] calButtonIds_2 = {R.id.cal01_2, R.id.cal02_2, R.id.cal03_2,
-            R.id.cal04_2, R.id.cal05_2, R.id.cal06_2, R.id.cal07_2,
-            R.id.cal08_2, R.id.cal09_2, R.id.cal10_2, R.id.cal11_2,
-            R.id.cal12_2, R.id.cal13_2, R.id.cal14_2, R.id.cal15_2,
-            R.id.cal16_2, R.id.cal17_2, R.id.cal18_2, R.id.cal19_2,
-            R.id.cal20_2, R.id.cal21_2, R.id.cal22_2, R.id.cal23_2,
-            R.id.cal24_2, R.id.cal25_2, R.id.cal26_2, R.id.cal27_2,
-            R.id.cal28_2, R.id.cal29_2, R.id.cal30_2, R.id.cal31_2,
-            R.id.cal32_2, R.id.cal33_2, R.id.cal34_2, R.id.cal35_2,
-            R.id.cal36_2, R.id.cal37_2, R.id.cal38_2, R.id.cal39_2,
-            R.id.cal40_2, R.id.cal41_2, R.id.cal42_2};
-
     private final String STATE_MONTH = "month";
     private final String STATE_YEAR = "year";
 
     private static final int PERMISSION_CONFIRM_BACKUP = 1;
     private static final int PERMISSION_CONFIRM_RESTORE = 2;
 
-    private GestureDetector gestureDetector;
-
-    private int viewCurrent = R.id.calendar;
-
     private int monthCurrent, yearCurrent;
 
-    /* First day of the week (0 = sunday) */
-    private int firstDayOfWeek;
-
     private PeriodicalDatabase dbMain;
 
-    /* Status of the main navigation drawer */
-    private boolean navigationDrawerActive = false;
+    /* Prepared months of the calendar view */
+    private final MonthCache monthCache = new MonthCache();
+
+    /* Calendar view with one page per month */
+    private RecyclerView calendarList;
+    private LinearLayoutManager calendarLayout;
+    private final LinearSnapHelper calendarSnapHelper = new LinearSnapHelper();
+    private MonthAdapter monthAdapter;
 
     /* Last active local in this view */
     private String currentLocale = "";
@@ -159,60 +134,34 @@ public class MainActivityApp extends AppCompatActivity
         drawer.addDrawerListener(toggle);
         toggle.syncState();
 
-        // Listener to detect when the navigation drawer is opening, so we
-        // avoid the main view to handle the swipe of the navigation drawer
-        drawer.addDrawerListener(new DrawerLayout.DrawerListener() {
-            @Override
-            public void onDrawerSlide(@NonNull View drawerView, float slideOffset)
-            {
-                navigationDrawerActive = true;
-            }
-
-            @Override
-            public void onDrawerOpened(@NonNull View drawerView)
-            {
-                navigationDrawerActive = true;
-            }
-
-            @Override
-            public void onDrawerClosed(@NonNull View drawerView)
-            {
-                navigationDrawerActive = false;
-            }
-
-            @Override
-            public void onDrawerStateChanged(int newState) {
-            }
-        });
-
         NavigationView navigationView = findViewById(R.id.nav_view);
         navigationView.setNavigationItemSelectedListener(this);
 
-        // Setup gesture handling
-        gestureDetector = new GestureDetector(context, new CalendarGestureDetector());
-        @SuppressWarnings("unused")
-        View.OnTouchListener gestureListener = new View.OnTouchListener() {
-            @SuppressLint("ClickableViewAccessibility")
-            public boolean onTouch(View v, MotionEvent event) {
-                switch (event.getAction()) {
-                    case MotionEvent.ACTION_DOWN:
-                        gestureDetector.onTouchEvent(event);
-                        break;
-                    case MotionEvent.ACTION_UP:
-                        v.performClick();
-                        break;
-                    default:
-                        break;
+        // Setup calendar view, swipes and flings are handled by the view itself
+        calendarList = findViewById(R.id.calendarlist);
+        calendarLayout = new LinearLayoutManager(this, LinearLayoutManager.HORIZONTAL, false);
+        calendarList.setLayoutManager(calendarLayout);
+        calendarList.setHasFixedSize(true);
+        calendarList.setItemAnimator(null);
+        calendarSnapHelper.attachToRecyclerView(calendarList);
+        monthAdapter = new MonthAdapter(context, monthCache, this::handleCalendarDay);
+        calendarList.setAdapter(monthAdapter);
+        calendarList.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrollStateChanged(@NonNull RecyclerView recyclerView, int newState) {
+                monthAdapter.setFling(newState == RecyclerView.SCROLL_STATE_SETTLING);
+                if (newState == RecyclerView.SCROLL_STATE_IDLE) {
+                    showVisibleMonth();
                 }
-                return true;
             }
-        };
+        });
 
         // Setup database
-        dbMain = new PeriodicalDatabase(context);
+        dbMain = AppPeriodical.acquireDatabase(context);
 
-        // Restore preferences from database to make sure, we got the correct datatypes
-        dbMain.restorePreferences();
+        // Restore preferences from database to make sure, we got the correct datatypes,
+        // this is done in the background before the calculation which uses them
+        dbMain.execute(dbMain::restorePreferences);
 
         // If savedInstanceState exists, restore the last
         // instance state, otherwise use current month as start value
@@ -223,8 +172,8 @@ public class MainActivityApp extends AppCompatActivity
             yearCurrent = savedInstanceState.getInt(STATE_YEAR);
         }
 
-        // Update calculated values
-        dbMain.loadCalculatedData();
+        // Get calculated values in the background, the calendar will be updated when done
+        dbMain.getCalculatedDataAsync(snapshot -> calendarUpdate());
 
         // Register activity result launchers
         pickDateResultLauncher = registerForActivityResult(
@@ -357,8 +306,10 @@ public class MainActivityApp extends AppCompatActivity
     protected void onDestroy() {
         super.onDestroy();
 
+        monthCache.close();
+
         if (dbMain != null)
-            dbMain.close();
+            AppPeriodical.releaseDatabase(this);
     }
 
     /**
@@ -375,6 +326,8 @@ public class MainActivityApp extends AppCompatActivity
             showList();
         } else if (id == R.id.listdetails) {
             showListDetails();
+        } else if (id == R.id.year) {
+            showYear();
         } else if (id == R.id.help) {
             showHelp();
         } else if (id == R.id.about) {
@@ -426,6 +379,15 @@ public class MainActivityApp extends AppCompatActivity
         );
     }
 
+    /**
+     * Handler for "Year overview" menu action
+     */
+    private void showYear() {
+        Intent intent = new Intent(MainActivityApp.this, YearActivity.class);
+        intent.putExtra("year", yearCurrent);
+        pickDateResultLauncher.launch(intent);
+    }
+
     /**
      * Handler for "Options" menu action
      */
@@ -439,127 +401,80 @@ public class MainActivityApp extends AppCompatActivity
      * Update calendar data and view
      */
     @SuppressWarnings("WrongConstant")
-    @SuppressLint("DefaultLocale")
     private void calendarUpdate() {
         final Context context = getApplicationContext();
         assert context != null;
 
-        // Initialize control ids for the target view to be used
-        int[] calendarCells;
-        if (viewCurrent == R.id.calendar) {
-            calendarCells = calButtonIds;
-        } else {
-            calendarCells = calButtonIds_2;
-        }
-
         PreferenceUtils preferences = new PreferenceUtils(context);
 
-        // Set weekday labels depending on selected start of week
+        // Get selected start of week
         int startOfWeek = preferences.getInt("startofweek", 0);
-        int column = 0;
-        int dayIndex = startOfWeek;
-        int[] dayLabels = {
-                R.string.main_calday_su,
-                R.string.main_calday_mo,
-                R.string.main_calday_tu,
-                R.string.main_calday_we,
-                R.string.main_calday_th,
-                R.string.main_calday_fr,
-                R.string.main_calday_sa
-        };
-        int[][] dayIds = {
-                { R.id.daylabel0_0, R.id.daylabel1_0},
-                { R.id.daylabel0_1, R.id.daylabel1_1},
-                { R.id.daylabel0_2, R.id.daylabel1_2},
-                { R.id.daylabel0_3, R.id.daylabel1_3},
-                { R.id.daylabel0_4, R.id.daylabel1_4},
-                { R.id.daylabel0_5, R.id.daylabel1_5},
-                { R.id.daylabel0_6, R.id.daylabel1_6}
-        };
-        while (column<7) {
-            TextView view1 = findViewById(dayIds[column][0]);
-            TextView view2 = findViewById(dayIds[column][1]);
-            view1.setText(dayLabels[dayIndex]);
-            view2.setText(dayLabels[dayIndex]);
-            column++;
-            dayIndex++;
-            if (dayIndex>6) {
-                dayIndex = 0;
-            }
-        }
 
         // Show day of cycle?
         boolean show_cycle = preferences.getBoolean("show_cycle", true);
 
-        // Create calendar object for current month
-        GregorianCalendar cal = new GregorianCalendar(yearCurrent, monthCurrent - 1, 1);
+        // Use the result of the last finished calculation for all pages
+        monthAdapter.setData(dbMain.getSnapshot(), startOfWeek, show_cycle);
 
-        // Output current year/month
-        TextView displayDate = findViewById(R.id.displaydate);
-        DateTimeFormatter dateFormat = DateTimeFormatter.ofPattern("LLLL yyyy");
-        String formatted = dateFormat.format(cal.toZonedDateTime());
-        displayDate.setText(String.format("%s", formatted));
-        displayDate.setContentDescription(String.format("%s", formatted));
-
-        // Calculate first week day of month
-        firstDayOfWeek = cal.get(Calendar.DAY_OF_WEEK);
-        int daysCount = cal.getActualMaximum(Calendar.DAY_OF_MONTH);
-
-        // Adjust first day of week to selected start day of week
-        firstDayOfWeek -= startOfWeek;
-        if (firstDayOfWeek <= 0) firstDayOfWeek += 7;
-
-        GregorianCalendar calToday = new GregorianCalendar();
-        int dayToday = calToday.get(GregorianCalendar.DATE);
-        int monthToday = calToday.get(GregorianCalendar.MONTH) + 1;
-        int yearToday = calToday.get(GregorianCalendar.YEAR);
-
-        // Adjust calendar elements
-        for (int i = 1; i <= 42; i++) {
-            CalendarCell cell = findViewById(calendarCells[i - 1]);
-            if (i < firstDayOfWeek || i >= firstDayOfWeek + daysCount) {
-                cell.setVisibility(android.view.View.INVISIBLE);
-                // TODO Display days of previous/next month as "disabled" buttons
-            } else {
-                // This cell is part of the current month,
-                // label text is the day of the month
-                int day = i - firstDayOfWeek + 1;
-                cell.setText(String.format("%d", day));
-                cell.setVisibility(android.view.View.VISIBLE);
-                PeriodicalDatabase.DayEntry entry = dbMain.getEntry(cal);
-
-                boolean current = day == dayToday && monthCurrent == monthToday && yearCurrent == yearToday;
-
-                // Set other button attributes
-                cell.setYear(yearCurrent);
-                cell.setMonth(monthCurrent);
-                cell.setDay(day);
-                cell.setCurrent(current);
-                cell.setIntercourse(false);
-                cell.setNotes(false);
-
-                if (entry != null) {
-                    cell.setType(entry.type);
-                    cell.setDayofcycle(show_cycle ? entry.dayofcycle : 0);
-                    cell.setIntensity(entry.intensity);
-
-                    for (int s : entry.symptoms) {
-                        if (s == 1) cell.setIntercourse(true);
-                        else cell.setNotes(true);
-                    }
+        showMonth(false);
+    }
 
-                    if (!entry.notes.isEmpty()) cell.setNotes(true);
-                } else {
-                    cell.setType(PeriodicalDatabase.DayEntry.EMPTY);
-                    cell.setDayofcycle(0);
-                }
+    /**
+     * Show the current month
+     *
+     * @param smooth true to scroll to the month, false to jump to it
+     */
+    private void showMonth(boolean smooth) {
+        int position = MonthAdapter.getPosition(yearCurrent, monthCurrent);
+        yearCurrent = MonthAdapter.getYear(position);
+        monthCurrent = MonthAdapter.getMonth(position);
 
-                // Set content description for TalkBack
-                cell.updateContentDescription();
+        if (smooth) {
+            calendarList.smoothScrollToPosition(position);
+        } else if (getVisiblePosition() != position) {
+            calendarList.scrollToPosition(position);
+        }
 
-                cal.add(GregorianCalendar.DATE, 1);
-            }
+        updateTitle(position);
+    }
+
+    /**
+     * Take the month which is visible after scrolling as the current month
+     */
+    private void showVisibleMonth() {
+        int position = getVisiblePosition();
+        if (position == RecyclerView.NO_POSITION) {
+            return;
         }
+        yearCurrent = MonthAdapter.getYear(position);
+        monthCurrent = MonthAdapter.getMonth(position);
+
+        updateTitle(position);
+    }
+
+    /**
+     * Get the position of the month which is visible in the calendar view
+     *
+     * @return Position of the month or NO_POSITION if the view is not laid out yet
+     */
+    private int getVisiblePosition() {
+        View view = calendarSnapHelper.findSnapView(calendarLayout);
+        if (view == null) {
+            return RecyclerView.NO_POSITION;
+        }
+        return calendarLayout.getPosition(view);
+    }
+
+    /**
+     * Output current year/month
+     *
+     * @param position Position of the month in the calendar view
+     */
+    private void updateTitle(int position) {
+        MonthModel model = monthAdapter.getModel(position);
+        TextView displayDate = findViewById(R.id.displaydate);
+        displayDate.setText(model.title);
+        displayDate.setContentDescription(model.title);
     }
 
     /**
@@ -567,26 +482,13 @@ public class MainActivityApp extends AppCompatActivity
      */
     @SuppressWarnings({"UnusedParameters", "SameParameterValue"})
     public void goPrev(View v) {
-        // Update calendar
         monthCurrent--;
         if (monthCurrent < 1) {
             monthCurrent = 12;
             yearCurrent--;
         }
 
-        if (viewCurrent == R.id.calendar) {
-            viewCurrent = R.id.calendar_2;
-        } else {
-            viewCurrent = R.id.calendar;
-        }
-
-        calendarUpdate();
-
-        // Show slide animation from left to right
-        ViewFlipper flipper = findViewById(R.id.mainwidget);
-        flipper.setInAnimation(AnimationHelper.inFromLeftAnimation());
-        flipper.setOutAnimation(AnimationHelper.outToRightAnimation());
-        flipper.showNext();
+        showMonth(true);
     }
 
     /**
@@ -594,26 +496,13 @@ public class MainActivityApp extends AppCompatActivity
      */
     @SuppressWarnings({"UnusedParameters", "SameParameterValue"})
     public void goNext(View v) {
-        // Update calendar
         monthCurrent++;
         if (monthCurrent > 12) {
             monthCurrent = 1;
             yearCurrent++;
         }
 
-        if (viewCurrent == R.id.calendar) {
-            viewCurrent = R.id.calendar_2;
-        } else {
-            viewCurrent = R.id.calendar;
-        }
-
-        calendarUpdate();
-
-        // Show slide animation from right to left
-        ViewFlipper flipper = findViewById(R.id.mainwidget);
-        flipper.setInAnimation(AnimationHelper.inFromRightAnimation());
-        flipper.setOutAnimation(AnimationHelper.outToLeftAnimation());
-        flipper.showPrevious();
+        showMonth(true);
     }
 
     /**
@@ -676,34 +565,49 @@ public class MainActivityApp extends AppCompatActivity
 
         switch(choice) {
             case BackupConfirmationDialogFragment.CHOICE_OK:
-                boolean ok = dbMain.backupToUri(context, uriBackup);
-                String text;
-                if (ok) {
-                    text = getResources().getString(R.string.backup_finished);
-                } else {
-                    text = getResources().getString(R.string.backup_failed);
-                }
-                Toast toast = Toast.makeText(context, text, Toast.LENGTH_SHORT);
-                toast.show();
-
-                // When the backup failed, ask for a new backup location
-                if (!ok) {
-                    Intent intent = new Intent(Intent.ACTION_OPEN_DOCUMENT_TREE);
-                    intent.addCategory(Intent.CATEGORY_DEFAULT);
-                    intent.addFlags(Intent.FLAG_GRANT_READ_URI_PERMISSION);
-                    intent.addFlags(Intent.FLAG_GRANT_PERSISTABLE_URI_PERMISSION);
-                    setOptionsResultStorageAccessSelectBackup.launch(intent);
-                }
+                // Do the backup in the background and report the result afterwards
+                dbMain.execute(() -> {
+                    boolean ok = dbMain.backupToUri(context, uriBackup);
+                    runOnUiThread(() -> handleBackupFinished(ok));
+                });
                 break;
 
             case BackupConfirmationDialogFragment.CHOICE_NEW_LOCATION:
-                dbMain.setOption("backup_uri", "");
-                dbMain.restorePreferences();
-                doBackup();
+                setBackupUri("", this::doBackup);
                 break;
         }
     }
 
+    /**
+     * Handler for a finished backup
+     *
+     * @param ok Flag if the backup was successful
+     */
+    private void handleBackupFinished(boolean ok) {
+        if (isDestroyed()) {
+            return;
+        }
+
+        final Context context = getApplicationContext();
+        String text;
+        if (ok) {
+            text = getResources().getString(R.string.backup_finished);
+        } else {
+            text = getResources().getString(R.string.backup_failed);
+        }
+        Toast toast = Toast.makeText(context, text, Toast.LENGTH_SHORT);
+        toast.show();
+
+        // When the backup failed, ask for a new backup location
+        if (!ok) {
+            Intent intent = new Intent(Intent.ACTION_OPEN_DOCUMENT_TREE);
+            intent.addCategory(Intent.CATEGORY_DEFAULT);
+            intent.addFlags(Intent.FLAG_GRANT_READ_URI_PERMISSION);
+            intent.addFlags(Intent.FLAG_GRANT_PERSISTABLE_URI_PERMISSION);
+            setOptionsResultStorageAccessSelectBackup.launch(intent);
+        }
+    }
+
     /**
      * Handler for backup select location dialog
      */
@@ -757,37 +661,51 @@ public class MainActivityApp extends AppCompatActivity
 
         switch(choice) {
             case RestoreConfirmationDialogFragment.CHOICE_OK:
-                boolean ok = dbMain.restoreFromUri(context, uriBackup);
-                dbMain.restorePreferences();
-                dbMain.loadCalculatedData();
-                calendarUpdate();
-                String text;
-                if (ok) {
-                    text = getResources().getString(R.string.restore_finished);
-                } else {
-                    text = getResources().getString(R.string.restore_failed);
-                }
-                Toast toast = Toast.makeText(context, text, Toast.LENGTH_SHORT);
-                toast.show();
-
-                // When the restore failed, ask for a new backup location
-                if (!ok) {
-                    Intent intent = new Intent(Intent.ACTION_OPEN_DOCUMENT_TREE);
-                    intent.addCategory(Intent.CATEGORY_DEFAULT);
-                    intent.addFlags(Intent.FLAG_GRANT_READ_URI_PERMISSION);
-                    intent.addFlags(Intent.FLAG_GRANT_PERSISTABLE_URI_PERMISSION);
-                    setOptionsResultStorageAccessSelectRestore.launch(intent);
-                }
+                // Do the restore in the background and report the result afterwards
+                dbMain.execute(() -> {
+                    boolean ok = dbMain.restoreFromUri(context, uriBackup);
+                    dbMain.restorePreferences();
+                    runOnUiThread(() -> handleRestoreFinished(ok));
+                });
+                dbMain.loadCalculatedDataAsync(snapshot -> calendarUpdate());
                 break;
 
             case RestoreConfirmationDialogFragment.CHOICE_NEW_LOCATION:
-                dbMain.setOption("backup_uri", "");
-                dbMain.restorePreferences();
-                doRestore();
+                setBackupUri("", this::doRestore);
                 break;
         }
     }
 
+    /**
+     * Handler for a finished restore
+     *
+     * @param ok Flag if the restore was successful
+     */
+    private void handleRestoreFinished(boolean ok) {
+        if (isDestroyed()) {
+            return;
+        }
+
+        final Context context = getApplicationContext();
+        String text;
+        if (ok) {
+            text = getResources().getString(R.string.restore_finished);
+        } else {
+            text = getResources().getString(R.string.restore_failed);
+        }
+        Toast toast = Toast.makeText(context, text, Toast.LENGTH_SHORT);
+        toast.show();
+
+        // When the restore failed, ask for a new backup location
+        if (!ok) {
+            Intent intent = new Intent(Intent.ACTION_OPEN_DOCUMENT_TREE);
+            intent.addCategory(Intent.CATEGORY_DEFAULT);
+            intent.addFlags(Intent.FLAG_GRANT_READ_URI_PERMISSION);
+            intent.addFlags(Intent.FLAG_GRANT_PERSISTABLE_URI_PERMISSION);
+            setOptionsResultStorageAccessSelectRestore.launch(intent);
+        }
+    }
+
     /**
      * Handler for restore select location dialog
      */
@@ -811,49 +729,33 @@ public class MainActivityApp extends AppCompatActivity
 
     /**
      * Handler for the selection of one day in the calendar
+     *
+     * @param day Selected day of the current month (1-31)
      */
-    public void handleCalendarButton(View v) {
+    private void handleCalendarDay(int year, int month, int day) {
         final Context context = getApplicationContext();
 
-        // Determine selected date
-        int idButton = v.getId();
-        int nButtonClicked = 0;
-
-        int[] calButtonIds;
-        if (viewCurrent == R.id.calendar) {
-            calButtonIds = this.calButtonIds;
-        } else {
-            calButtonIds = calButtonIds_2;
-        }
-
-        while (nButtonClicked < 42) {
-            if (calButtonIds[nButtonClicked] == idButton)
-                break;
-            nButtonClicked++;
-        }
-        final int day = nButtonClicked - firstDayOfWeek + 2;
-
         // If "direct details" is set by the user, just open the details
         PreferenceUtils preferences = new PreferenceUtils(context);
 
         if (preferences.getBoolean("direct_details", false)) {
-            showDetailsActivity(yearCurrent, monthCurrent, day);
+            showDetailsActivity(year, month, day);
         } else {
             // Set or remove entry with confirmation
 
-            final GregorianCalendar date = new GregorianCalendar(yearCurrent, monthCurrent - 1, day);
-            int type = dbMain.getEntryType(date);
+            final GregorianCalendar date = new GregorianCalendar(year, month - 1, day);
+            int type = dbMain.getSnapshot().getEntryType(date);
             if (type != PERIOD_START && type != PERIOD_CONFIRMED) {
-                EditCalendarEntryDialogFragment.newInstance(EditCalendarEntryDialogFragment.TYPE_ADD, yearCurrent, monthCurrent, day).show(
+                EditCalendarEntryDialogFragment.newInstance(EditCalendarEntryDialogFragment.TYPE_ADD, year, month, day).show(
                         getSupportFragmentManager(), EditCalendarEntryDialogFragment.TAG
                 );
             } else {
                 if (type == PERIOD_START) {
-                    EditCalendarEntryDialogFragment.newInstance(EditCalendarEntryDialogFragment.TYPE_REMOVE_PERIOD, yearCurrent, monthCurrent, day).show(
+                    EditCalendarEntryDialogFragment.newInstance(EditCalendarEntryDialogFragment.TYPE_REMOVE_PERIOD, year, month, day).show(
                             getSupportFragmentManager(), EditCalendarEntryDialogFragment.TAG
                     );
                 } else {
-                    EditCalendarEntryDialogFragment.newInstance(EditCalendarEntryDialogFragment.TYPE_REMOVE, yearCurrent, monthCurrent, day).show(
+                    EditCalendarEntryDialogFragment.newInstance(EditCalendarEntryDialogFragment.TYPE_REMOVE, year, month, day).show(
                             getSupportFragmentManager(), EditCalendarEntryDialogFragment.TAG
                     );
                 }
@@ -865,7 +767,7 @@ public class MainActivityApp extends AppCompatActivity
      * Handle calender edit dialog result
      */
     private void handleEditCalendarEntry(int type, int choice, int year, int month, int day) {
-        final GregorianCalendar date = new GregorianCalendar(yearCurrent, monthCurrent - 1, day);
+        final GregorianCalendar date = new GregorianCalendar(year, month - 1, day);
 
         if (choice == EditCalendarEntryDialogFragment.CHOICE_DETAILS) {
             showDetailsActivity(year, month, day);
@@ -875,15 +777,15 @@ public class MainActivityApp extends AppCompatActivity
 
         if (choice == EditCalendarEntryDialogFragment.CHOICE_OK) {
             if (type == EditCalendarEntryDialogFragment.TYPE_ADD) {
-                dbMain.addPeriod(date);
-                databaseChanged();
+                dbMain.execute(() -> dbMain.addPeriod(date));
+                databaseChanged(date);
 
                 return;
             }
 
             if (type == EditCalendarEntryDialogFragment.TYPE_REMOVE || type == EditCalendarEntryDialogFragment.TYPE_REMOVE_PERIOD) {
-                dbMain.removePeriod(date);
-                databaseChanged();
+                dbMain.execute(() -> dbMain.removePeriod(date));
+                databaseChanged(date);
 
                 return;
             }
@@ -906,14 +808,45 @@ public class MainActivityApp extends AppCompatActivity
      */
     private void databaseChanged() {
         // Update calculated values
-        dbMain.loadCalculatedData();
-        calendarUpdate();
+        dbMain.loadCalculatedDataAsync(snapshot -> calendarUpdate());
 
         // Notify backup agent about the change and mark DB as clean
         BackupManager bm = new BackupManager(this);
         bm.dataChanged();
     }
 
+    /**
+     * Helper to handle changes of a specific day in the database
+     *
+     * @param date Date of the changed entry
+     */
+    private void databaseChanged(GregorianCalendar date) {
+        // Update calculated values starting with the changed day
+        dbMain.updateCalculatedDataAsync(date, snapshot -> calendarUpdate());
+
+        // Notify backup agent about the change and mark DB as clean
+        BackupManager bm = new BackupManager(this);
+        bm.dataChanged();
+    }
+
+    /**
+     * Helper to store the backup location in the background
+     *
+     * @param backupUri Backup location or an empty string to select a new one
+     * @param next      Action to be done on the main thread when the location is stored
+     */
+    private void setBackupUri(String backupUri, Runnable next) {
+        dbMain.execute(() -> {
+            dbMain.setOption("backup_uri", backupUri);
+            dbMain.restorePreferences();
+            runOnUiThread(() -> {
+                if (!isDestroyed()) {
+                    next.run();
+                }
+            });
+        });
+    }
+
     private Uri getUriBackup(Context context) {
         PreferenceUtils preferences = new PreferenceUtils(context);
         String backupUriString = preferences.getString("backup_uri", "");
@@ -956,8 +889,9 @@ public class MainActivityApp extends AppCompatActivity
      * Update calendar view
      */
     protected void updateCalendarView() {
-        dbMain.loadCalculatedData();
+        // Show the last result until all pending calculations are done
         calendarUpdate();
+        dbMain.getCalculatedDataAsync(snapshot -> calendarUpdate());
     }
 
     /**
@@ -971,9 +905,7 @@ public class MainActivityApp extends AppCompatActivity
                     storageUri,
                     Intent.FLAG_GRANT_READ_URI_PERMISSION |
                             Intent.FLAG_GRANT_WRITE_URI_PERMISSION);
-            dbMain.setOption("backup_uri", storageUri.toString());
-            dbMain.restorePreferences();
-            doBackup();
+            setBackupUri(storageUri.toString(), this::doBackup);
         }
     }
 
@@ -988,56 +920,7 @@ public class MainActivityApp extends AppCompatActivity
                     storageUri,
                     Intent.FLAG_GRANT_READ_URI_PERMISSION |
                             Intent.FLAG_GRANT_WRITE_URI_PERMISSION);
-            dbMain.setOption("backup_uri", storageUri.toString());
-            dbMain.restorePreferences();
-            doRestore();
-        }
-    }
-
-    /**
-     * Touch dispatcher to pass events to the gesture detector to detect swipes on the UI
-     */
-
-    @Override
-    public boolean dispatchTouchEvent(MotionEvent e) {
-        boolean result = super.dispatchTouchEvent(e);
-
-        // Only dispatch touch event to gesture detector,
-        // if the navigation drawer is not active (opening, closing etc.)
-        if (!navigationDrawerActive) {
-            return gestureDetector.onTouchEvent(e);
-        }
-
-        return result;
-    }
-
-    /**
-     * Gesture detector to handle swipes on the UI
-     */
-    private class CalendarGestureDetector extends SimpleOnGestureListener {
-        private static final int SWIPE_MIN_DISTANCE = 120;
-        private static final int SWIPE_MAX_OFF_PATH = 250;
-        private static final int SWIPE_THRESHOLD_VELOCITY = 200;
-
-        @Override
-        public boolean onFling(MotionEvent e1, @NonNull MotionEvent e2, float velocityX, float velocityY) {
-            try {
-                // if swipe is not straight enough then ignore
-                if (Math.abs(e1.getY() - e2.getY()) > SWIPE_MAX_OFF_PATH) {
-                    return false;
-                }
-
-                if (e1.getX() - e2.getX() > SWIPE_MIN_DISTANCE
-                        && Math.abs(velocityX) > SWIPE_THRESHOLD_VELOCITY) {
-                    goNext(null);
-                } else if (e2.getX() - e1.getX() > SWIPE_MIN_DISTANCE
-                        && Math.abs(velocityX) > SWIPE_THRESHOLD_VELOCITY) {
-                    goPrev(null);
-                }
-            } catch (Exception e) {
-                // nothing
-            }
-            return false;
+            setBackupUri(storageUri.toString(), this::doRestore);
         }
     }
 }
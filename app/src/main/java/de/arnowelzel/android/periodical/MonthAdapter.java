@@ -0,0 +1,337 @@
+/*
+ * Periodical month adapter class
+ * Copyright (C) 2012-2025 Arno Welzel
+ *
+ * This code is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.arnowelzel.android.periodical;
+
+import android.annotation.SuppressLint;
+import android.content.Context;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.GregorianCalendar;
+
+/**
+ * Adapter to populate the pages of the calendar view, one page per month
+ *
+ * <br><br><i>The months are taken from the month cache. While the calendar is flung, missing
+ * months are only requested from the background thread and the page stays empty until the
+ * month is available, so a fling through many years does not block the main thread.</i>
+ */
+class MonthAdapter extends RecyclerView.Adapter<MonthAdapter.MonthHolder> {
+    /**
+     * Listener for selected days
+     */
+    interface OnDayClickListener {
+        /**
+         * Called when a day was selected
+         *
+         * @param year  Year
+         * @param month Month (1-12)
+         * @param day   Day of month (1-31)
+         */
+        void onDayClick(int year, int month, int day);
+    }
+
+    /**
+     * First year which can be displayed
+     */
+    private final static int YEAR_FIRST = 1900;
+    /**
+     * Last year which can be displayed
+     */
+    private final static int YEAR_LAST = 2199;
+
+    /**
+     * Weekday labels, starting with sunday
+     */
+    private final static int[] DAY_LABELS = {
+            R.string.main_calday_su,
+            R.string.main_calday_mo,
+            R.string.main_calday_tu,
+            R.string.main_calday_we,
+            R.string.main_calday_th,
+            R.string.main_calday_fr,
+            R.string.main_calday_sa
+    };
+    /**
+     * Weekday descriptions for TalkBack, starting with sunday
+     */
+    private final static int[] DAY_DESCRIPTIONS = {
+            R.string.main_calday_su_description,
+            R.string.main_calday_mo_description,
+            R.string.main_calday_tu_description,
+            R.string.main_calday_we_description,
+            R.string.main_calday_th_description,
+            R.string.main_calday_fr_description,
+            R.string.main_calday_sa_description
+    };
+    /**
+     * Ids of the weekday labels in a page
+     */
+    private final static int[] DAY_IDS = {
+            R.id.daylabel0,
+            R.id.daylabel1,
+            R.id.daylabel2,
+            R.id.daylabel3,
+            R.id.daylabel4,
+            R.id.daylabel5,
+            R.id.daylabel6
+    };
+
+    private final Context context;
+    private final MonthCache monthCache;
+    private final OnDayClickListener dayClickListener;
+    private final MonthCache.MonthListener monthListener = this::onMonth;
+
+    private CalculationSnapshot snapshot = CalculationSnapshot.EMPTY;
+    private int startOfWeek = 0;
+    private boolean showCycle = true;
+    private boolean fling = false;
+
+    /* Current day, used to mark it in the calendar */
+    private int yearToday, monthToday, dayToday;
+
+    /**
+     * Constructor
+     *
+     * @param context          Application context
+     * @param monthCache       Cache for the prepared months
+     * @param dayClickListener Listener for selected days
+     */
+    MonthAdapter(Context context, MonthCache monthCache, OnDayClickListener dayClickListener) {
+        this.context = context;
+        this.monthCache = monthCache;
+        this.dayClickListener = dayClickListener;
+        setHasStableIds(true);
+    }
+
+    /**
+     * Get the position of a month
+     *
+     * @param year  Year
+     * @param month Month (1-12)
+     * @return Position in the calendar view, limited to the months which can be displayed
+     */
+    static int getPosition(int year, int month) {
+        if (year < YEAR_FIRST) {
+            return 0;
+        }
+        if (year > YEAR_LAST) {
+            return (YEAR_LAST - YEAR_FIRST + 1) * 12 - 1;
+        }
+        return (year - YEAR_FIRST) * 12 + month - 1;
+    }
+
+    /**
+     * Get the year of a position
+     *
+     * @param position Position in the calendar view
+     * @return Year
+     */
+    static int getYear(int position) {
+        return YEAR_FIRST + position / 12;
+    }
+
+    /**
+     * Get the month of a position
+     *
+     * @param position Position in the calendar view
+     * @return Month (1-12)
+     */
+    static int getMonth(int position) {
+        return position % 12 + 1;
+    }
+
+    /**
+     * Set the data to display and update all pages
+     *
+     * @param snapshot    Current calculation result
+     * @param startOfWeek First day of the week (0 = sunday)
+     * @param showCycle   true if the day of cycle is displayed
+     */
+    @SuppressLint("NotifyDataSetChanged")
+    void setData(CalculationSnapshot snapshot, int startOfWeek, boolean showCycle) {
+        this.snapshot = snapshot;
+        this.startOfWeek = startOfWeek;
+        this.showCycle = showCycle;
+
+        GregorianCalendar calToday = new GregorianCalendar();
+        yearToday = calToday.get(GregorianCalendar.YEAR);
+        monthToday = calToday.get(GregorianCalendar.MONTH) + 1;
+        dayToday = calToday.get(GregorianCalendar.DATE);
+
+        // Pages which still show the same month are not changed when bound again
+        notifyDataSetChanged();
+    }
+
+    /**
+     * Set if the calendar view is flung, so missing months are only prepared in the background
+     *
+     * @param fling true if the calendar view is flung
+     */
+    void setFling(boolean fling) {
+        this.fling = fling;
+    }
+
+    /**
+     * Get the month of a position with the current data
+     *
+     * @param position Position in the calendar view
+     * @return The month, either from the cache or newly prepared
+     */
+    MonthModel getModel(int position) {
+        return monthCache.get(context, snapshot, getYear(position), getMonth(position),
+                startOfWeek, showCycle);
+    }
+
+    @Override
+    public int getItemCount() {
+        return (YEAR_LAST - YEAR_FIRST + 1) * 12;
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return position;
+    }
+
+    @NonNull
+    @Override
+    public MonthHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext())
+                .inflate(R.layout.calendarmonth, parent, false);
+        return new MonthHolder(view);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull MonthHolder holder, int position) {
+        int year = getYear(position);
+        int month = getMonth(position);
+
+        holder.setStartOfWeek(startOfWeek);
+        MonthModel model = monthCache.peek(snapshot, year, month, startOfWeek, showCycle);
+        if (model == null && !fling) {
+            model = monthCache.get(context, snapshot, year, month, startOfWeek, showCycle);
+        }
+        if (model != null) {
+            holder.setMonth(model, year == yearToday && month == monthToday ? dayToday : 0);
+        } else {
+            holder.clearMonth();
+        }
+
+        // Prepare the other months of this year in the background
+        monthCache.prefetchPage(context, snapshot, year, startOfWeek, showCycle, monthListener);
+    }
+
+    /**
+     * Update the page of a month which was prepared in the background
+     *
+     * @param model The prepared month
+     */
+    private void onMonth(MonthModel model) {
+        notifyItemChanged(getPosition(model.year, model.month));
+    }
+
+    /**
+     * Page of the calendar view with weekday labels and the grid of days
+     */
+    class MonthHolder extends RecyclerView.ViewHolder {
+        private final TextView[] dayLabels = new TextView[DAY_IDS.length];
+        private final MonthGridView grid;
+
+        /* Data which is currently displayed */
+        private MonthModel model = null;
+        private int currentDay = 0;
+        private int startOfWeek = -1;
+
+        /**
+         * Constructor
+         *
+         * @param view View of the page
+         */
+        MonthHolder(@NonNull View view) {
+            super(view);
+
+            for (int column = 0; column < DAY_IDS.length; column++) {
+                dayLabels[column] = view.findViewById(DAY_IDS[column]);
+            }
+            grid = view.findViewById(R.id.calendargrid);
+            grid.setOnDayClickListener(day -> {
+                if (model != null) {
+                    dayClickListener.onDayClick(model.year, model.month, day);
+                }
+            });
+        }
+
+        /**
+         * Set weekday labels depending on selected start of week
+         *
+         * @param startOfWeek First day of the week (0 = sunday)
+         */
+        void setStartOfWeek(int startOfWeek) {
+            if (this.startOfWeek == startOfWeek) {
+                return;
+            }
+            this.startOfWeek = startOfWeek;
+
+            int dayIndex = startOfWeek;
+            for (TextView dayLabel : dayLabels) {
+                dayLabel.setText(DAY_LABELS[dayIndex]);
+                dayLabel.setContentDescription(context.getString(DAY_DESCRIPTIONS[dayIndex]));
+                dayIndex++;
+                if (dayIndex > 6) {
+                    dayIndex = 0;
+                }
+            }
+        }
+
+        /**
+         * Set the month of the page
+         *
+         * <br><br><i>Nothing is done if the page already shows the given month and the current
+         * day did not change since then.</i>
+         *
+         * @param model      Month to display
+         * @param currentDay Day of month which is the current day, 0 if not in this month
+         */
+        void setMonth(MonthModel model, int currentDay) {
+            if (this.model == model && this.currentDay == currentDay) {
+                return;
+            }
+            this.model = model;
+            this.currentDay = currentDay;
+            grid.setMonth(model, currentDay);
+        }
+
+        /**
+         * Remove the month of the page until it is prepared
+         */
+        void clearMonth() {
+            if (model == null) {
+                return;
+            }
+            model = null;
+            currentDay = 0;
+            grid.clearMonth();
+        }
+    }
+}
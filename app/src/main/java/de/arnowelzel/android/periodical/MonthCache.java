@@ -0,0 +1,259 @@
+/*
+ * Periodical month cache class
+ * Copyright (C) 2012-2025 Arno Welzel
+ *
+ * This code is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.arnowelzel.android.periodical;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Cache for the prepared months of the calendar view
+ *
+ * <br><br><i>The months used last are kept, so flipping between months does not need to
+ * prepare them again. When a new calculation is finished only the months after the day
+ * where the calculation started are removed, since all earlier entries did not change.
+ * Months can also be prepared in advance on a background thread, one page of twelve months
+ * at once. The cache itself must only be used on the main thread.</i>
+ */
+class MonthCache {
+    /**
+     * Listener for months prepared in advance
+     */
+    interface MonthListener {
+        /**
+         * Called on the main thread when a month is available
+         *
+         * @param model The prepared month
+         */
+        void onMonth(MonthModel model);
+    }
+
+    /**
+     * Number of months which are prepared together, pages always start with january
+     */
+    private final static int PAGE_SIZE = 12;
+    /**
+     * Maximum number of months to keep, enough for the current page and the pages around it
+     */
+    private final static int CAPACITY = 3 * PAGE_SIZE;
+
+    /**
+     * Months by year and month, ordered by last access
+     */
+    private final LinkedHashMap<Integer, MonthModel> months =
+            new LinkedHashMap<Integer, MonthModel>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, MonthModel> eldest) {
+                    return size() > CAPACITY;
+                }
+            };
+    /**
+     * Months which are currently prepared on the background thread with their generation
+     */
+    private final HashMap<Integer, Integer> pending = new HashMap<>();
+    /**
+     * Single thread to prepare months in advance
+     */
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    /**
+     * Handler to deliver prepared months to the main thread
+     */
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    /**
+     * Flag if the cache was closed and no more months must be delivered
+     */
+    private boolean closed = false;
+    /**
+     * Format for the month titles
+     */
+    private final DateTimeFormatter titleFormat = DateTimeFormatter.ofPattern("LLLL yyyy");
+    /**
+     * Version of the snapshot the months were prepared with
+     */
+    private int version = -1;
+    /**
+     * Counter which is increased whenever the snapshot or the settings change
+     */
+    private int generation = 0;
+    /**
+     * First day of the week the months were prepared with
+     */
+    private int startOfWeek;
+    /**
+     * Display of the day of cycle the months were prepared with
+     */
+    private boolean showCycle;
+
+    /**
+     * Get a prepared month
+     *
+     * @param context     Application context
+     * @param snapshot    Current calculation result
+     * @param year        Year
+     * @param month       Month (1-12)
+     * @param startOfWeek First day of the week (0 = sunday)
+     * @param showCycle   true if the day of cycle is displayed
+     * @return The month, either from the cache or newly prepared
+     */
+    MonthModel get(Context context, CalculationSnapshot snapshot, int year, int month,
+                   int startOfWeek, boolean showCycle) {
+        validate(snapshot, startOfWeek, showCycle);
+
+        int key = year * 12 + month - 1;
+        MonthModel model = months.get(key);
+        if (model == null) {
+            model = new MonthModel(context, snapshot, titleFormat, year, month, startOfWeek, showCycle);
+            months.put(key, model);
+        }
+        return model;
+    }
+
+    /**
+     * Get a month only if it is already prepared
+     *
+     * @param snapshot    Current calculation result
+     * @param year        Year
+     * @param month       Month (1-12)
+     * @param startOfWeek First day of the week (0 = sunday)
+     * @param showCycle   true if the day of cycle is displayed
+     * @return The month from the cache or null if it is not prepared yet
+     */
+    MonthModel peek(CalculationSnapshot snapshot, int year, int month,
+                    int startOfWeek, boolean showCycle) {
+        validate(snapshot, startOfWeek, showCycle);
+
+        return months.get(year * 12 + month - 1);
+    }
+
+    /**
+     * Prepare all months of a year on the background thread
+     *
+     * <br><br><i>Months which are already in the cache or which are already being prepared are
+     * skipped. The listener is called later on the main thread for every month which was added
+     * to the cache. If the snapshot or the settings change in the meantime, the months are
+     * dropped and the listener is not called.</i>
+     *
+     * @param context     Application context
+     * @param snapshot    Current calculation result
+     * @param year        Year
+     * @param startOfWeek First day of the week (0 = sunday)
+     * @param showCycle   true if the day of cycle is displayed
+     * @param listener    Listener to receive the months
+     */
+    void prefetchPage(final Context context, final CalculationSnapshot snapshot, final int year,
+                      final int startOfWeek, final boolean showCycle,
+                      final MonthListener listener) {
+        validate(snapshot, startOfWeek, showCycle);
+
+        final int generationPrefetch = generation;
+        final ArrayList<Integer> keys = new ArrayList<>(PAGE_SIZE);
+        for (int key = year * 12; key < year * 12 + PAGE_SIZE; key++) {
+            if (months.containsKey(key)) {
+                continue;
+            }
+            Integer generationPending = pending.get(key);
+            if (generationPending != null && generationPending == generationPrefetch) {
+                continue;
+            }
+            pending.put(key, generationPrefetch);
+            keys.add(key);
+        }
+        if (keys.isEmpty()) {
+            return;
+        }
+
+        executor.execute(() -> {
+            final MonthModel[] models = new MonthModel[keys.size()];
+            for (int index = 0; index < models.length; index++) {
+                int key = keys.get(index);
+                models[index] = new MonthModel(context, snapshot, titleFormat,
+                        key / 12, key % 12 + 1, startOfWeek, showCycle);
+            }
+            handler.post(() -> {
+                for (int key : keys) {
+                    Integer generationDone = pending.get(key);
+                    if (generationDone != null && generationDone == generationPrefetch) {
+                        pending.remove(key);
+                    }
+                }
+                if (closed || generationPrefetch != generation) {
+                    return;
+                }
+                for (int index = 0; index < models.length; index++) {
+                    int key = keys.get(index);
+                    if (!months.containsKey(key)) {
+                        months.put(key, models[index]);
+                        listener.onMonth(models[index]);
+                    }
+                }
+            });
+        });
+    }
+
+    /**
+     * Stop preparing months in advance
+     */
+    void close() {
+        closed = true;
+        executor.shutdownNow();
+        handler.removeCallbacksAndMessages(null);
+    }
+
+    /**
+     * Remove months which do not match the current snapshot or settings any longer
+     *
+     * @param snapshot    Current calculation result
+     * @param startOfWeek First day of the week (0 = sunday)
+     * @param showCycle   true if the day of cycle is displayed
+     */
+    private void validate(CalculationSnapshot snapshot, int startOfWeek, boolean showCycle) {
+        if (snapshot.version == version && startOfWeek == this.startOfWeek
+                && showCycle == this.showCycle) {
+            return;
+        }
+
+        generation++;
+        if (startOfWeek != this.startOfWeek || showCycle != this.showCycle) {
+            months.clear();
+        } else if (snapshot.version == version + 1) {
+            // Only the entries after the start of the last calculation were changed
+            Iterator<MonthModel> iterator = months.values().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().getLastEventday() > snapshot.changedAfter) {
+                    iterator.remove();
+                }
+            }
+        } else {
+            // Calculations were missed, so it is not known which entries changed
+            months.clear();
+        }
+        this.version = snapshot.version;
+        this.startOfWeek = startOfWeek;
+        this.showCycle = showCycle;
+    }
+}
@@ -0,0 +1,407 @@
+/*
+ * Periodical month grid view class
+ * Copyright (C) 2012-2025 Arno Welzel
+ *
+ * This code is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.arnowelzel.android.periodical;
+
+import android.annotation.SuppressLint;
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.os.Bundle;
+import android.util.AttributeSet;
+import android.util.TypedValue;
+import android.view.KeyEvent;
+import android.view.MotionEvent;
+import android.view.SoundEffectConstants;
+import android.view.View;
+import android.view.accessibility.AccessibilityEvent;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.view.ViewCompat;
+import androidx.core.view.accessibility.AccessibilityNodeInfoCompat;
+import androidx.customview.widget.ExploreByTouchHelper;
+
+import java.util.List;
+
+/**
+ * Custom view to display all days of a month in one grid
+ *
+ * <br><br><i>The grid has 6 rows with 7 days each. All days are drawn in one pass using
+ * {@link CalendarCell}, taps are mapped to the day below them and TalkBack gets one virtual
+ * view for each day.</i>
+ */
+public class MonthGridView extends View {
+    /**
+     * Listener for selected days
+     */
+    interface OnDayClickListener {
+        /**
+         * Called when a day was selected
+         *
+         * @param day Day of month (1-31)
+         */
+        void onDayClick(int day);
+    }
+
+    /**
+     * Number of columns
+     */
+    private final static int COLUMNS = 7;
+    /**
+     * Number of rows
+     */
+    private final static int ROWS = 6;
+
+    /**
+     * Cells for all days of a month, index is the day of month - 1
+     */
+    private final CalendarCell[] cells = new CalendarCell[31];
+    /**
+     * Margin around each cell
+     */
+    private final float margin;
+    /**
+     * Helper for TalkBack and keyboard navigation
+     */
+    private final GridAccessibilityHelper accessibilityHelper;
+    /**
+     * Month to display
+     */
+    private MonthModel model;
+    /**
+     * Width of one column
+     */
+    private float cellWidth;
+    /**
+     * Height of one row
+     */
+    private float cellHeight;
+    /**
+     * Day which is currently pressed, 0 if none
+     */
+    private int pressedDay = 0;
+    /**
+     * Listener for selected days
+     */
+    private OnDayClickListener dayClickListener;
+
+    /**
+     * Constructor
+     *
+     * @param context Application context
+     * @param attrs   Resource attributes
+     */
+    public MonthGridView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+
+        for (int index = 0; index < cells.length; index++) {
+            cells[index] = new CalendarCell(context);
+        }
+        margin = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 1,
+                context.getResources().getDisplayMetrics());
+
+        setFocusable(true);
+        setClickable(true);
+        accessibilityHelper = new GridAccessibilityHelper(this);
+        ViewCompat.setAccessibilityDelegate(this, accessibilityHelper);
+    }
+
+    /**
+     * Set the listener for selected days
+     *
+     * @param listener The listener
+     */
+    void setOnDayClickListener(OnDayClickListener listener) {
+        dayClickListener = listener;
+    }
+
+    /**
+     * Set the month to display
+     *
+     * @param model      Prepared month
+     * @param currentDay Day of month which is the current day, 0 if not in this month
+     */
+    void setMonth(MonthModel model, int currentDay) {
+        this.model = model;
+        pressedDay = 0;
+
+        for (int day = 1; day <= model.daysCount; day++) {
+            int index = day - 1;
+            CalendarCell cell = cells[index];
+            cell.setLabel(MonthModel.getLabel(day));
+            cell.setCurrent(day == currentDay);
+            cell.setPressed(false);
+            cell.setType(model.types[index]);
+            cell.setDayofcycle(model.daysOfCycle[index]);
+            cell.setIntensity(model.intensities[index]);
+            cell.setIntercourse((model.flags[index] & MonthModel.FLAG_INTERCOURSE) != 0);
+            cell.setNotes((model.flags[index] & MonthModel.FLAG_NOTES) != 0);
+        }
+
+        invalidate();
+        accessibilityHelper.invalidateRoot();
+    }
+
+    /**
+     * Remove the month, nothing is displayed until a month is set again
+     */
+    void clearMonth() {
+        model = null;
+        pressedDay = 0;
+
+        invalidate();
+        accessibilityHelper.invalidateRoot();
+    }
+
+    /**
+     * Handle size changes to adapt the size of the cells
+     *
+     * @param w    Current width
+     * @param h    Current height
+     * @param oldw Old width
+     * @param oldh Old height
+     */
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        cellWidth = (float) w / COLUMNS;
+        cellHeight = (float) h / ROWS;
+
+        int width = (int) (cellWidth - 2 * margin);
+        int height = (int) (cellHeight - 2 * margin);
+        for (CalendarCell cell : cells) {
+            cell.setSize(width, height);
+        }
+    }
+
+    /**
+     * Custom draw
+     *
+     * @param canvas The canvas to draw on
+     */
+    @Override
+    protected void onDraw(@NonNull Canvas canvas) {
+        if (model == null) {
+            return;
+        }
+
+        // TODO Display days of previous/next month as "disabled" buttons
+        int focusedDay = isFocused() ? accessibilityHelper.getKeyboardFocusedVirtualViewId() : 0;
+        for (int day = 1; day <= model.daysCount; day++) {
+            int position = model.firstDayOfWeek + day - 2;
+            CalendarCell cell = cells[day - 1];
+            cell.setFocused(day == focusedDay);
+
+            int saveCount = canvas.save();
+            canvas.translate((position % COLUMNS) * cellWidth + margin,
+                    (position / COLUMNS) * cellHeight + margin);
+            cell.draw(canvas);
+            canvas.restoreToCount(saveCount);
+        }
+    }
+
+    /**
+     * Handle touch events to select days
+     *
+     * @param event The touch event
+     */
+    @SuppressLint("ClickableViewAccessibility")
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        if (model == null) {
+            return false;
+        }
+
+        int day = getDayAt(event.getX(), event.getY());
+        switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+                setPressedDay(day);
+                return true;
+            case MotionEvent.ACTION_MOVE:
+                // Moving to another day cancels the selection
+                if (day != pressedDay) {
+                    setPressedDay(0);
+                }
+                return true;
+            case MotionEvent.ACTION_UP:
+                if (pressedDay != 0 && day == pressedDay) {
+                    playSoundEffect(SoundEffectConstants.CLICK);
+                    performDayClick(day);
+                }
+                setPressedDay(0);
+                return true;
+            case MotionEvent.ACTION_CANCEL:
+                setPressedDay(0);
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Pass hover events to TalkBack
+     *
+     * @param event The hover event
+     */
+    @Override
+    protected boolean dispatchHoverEvent(MotionEvent event) {
+        return accessibilityHelper.dispatchHoverEvent(event) || super.dispatchHoverEvent(event);
+    }
+
+    /**
+     * Pass key events to the keyboard navigation between days
+     *
+     * @param event The key event
+     */
+    @Override
+    public boolean dispatchKeyEvent(KeyEvent event) {
+        return accessibilityHelper.dispatchKeyEvent(event) || super.dispatchKeyEvent(event);
+    }
+
+    /**
+     * Pass focus changes to the keyboard navigation between days
+     */
+    @Override
+    protected void onFocusChanged(boolean gainFocus, int direction, @Nullable Rect previouslyFocusedRect) {
+        super.onFocusChanged(gainFocus, direction, previouslyFocusedRect);
+        accessibilityHelper.onFocusChanged(gainFocus, direction, previouslyFocusedRect);
+        invalidate();
+    }
+
+    /**
+     * Get the day at a position in the view
+     *
+     * @param x Horizontal position
+     * @param y Vertical position
+     * @return Day of month (1-31) or 0 if there is no day at this position
+     */
+    private int getDayAt(float x, float y) {
+        if (model == null || x < 0 || y < 0 || x >= getWidth() || y >= getHeight()) {
+            return 0;
+        }
+        int column = Math.min((int) (x / cellWidth), COLUMNS - 1);
+        int row = Math.min((int) (y / cellHeight), ROWS - 1);
+        int day = row * COLUMNS + column - model.firstDayOfWeek + 2;
+        return day >= 1 && day <= model.daysCount ? day : 0;
+    }
+
+    /**
+     * Get the bounds of a day in the view
+     *
+     * @param day    Day of month (1-31)
+     * @param bounds Rectangle to store the bounds in
+     */
+    private void getDayBounds(int day, Rect bounds) {
+        int position = model.firstDayOfWeek + day - 2;
+        int left = (int) ((position % COLUMNS) * cellWidth);
+        int top = (int) ((position / COLUMNS) * cellHeight);
+        bounds.set(left, top, (int) (left + cellWidth), (int) (top + cellHeight));
+    }
+
+    /**
+     * Set the pressed day and redraw the view if it changed
+     *
+     * @param day Day of month (1-31) or 0 if no day is pressed
+     */
+    private void setPressedDay(int day) {
+        if (day == pressedDay) {
+            return;
+        }
+        if (pressedDay != 0) {
+            cells[pressedDay - 1].setPressed(false);
+        }
+        if (day != 0) {
+            cells[day - 1].setPressed(true);
+        }
+        pressedDay = day;
+        invalidate();
+    }
+
+    /**
+     * Select a day
+     *
+     * @param day Day of month (1-31)
+     */
+    private void performDayClick(int day) {
+        if (dayClickListener != null) {
+            dayClickListener.onDayClick(day);
+        }
+        accessibilityHelper.sendEventForVirtualView(day, AccessibilityEvent.TYPE_VIEW_CLICKED);
+    }
+
+    /**
+     * Virtual views for the days, used by TalkBack and keyboard navigation
+     */
+    private class GridAccessibilityHelper extends ExploreByTouchHelper {
+        /**
+         * Rectangle to get the bounds of a day
+         */
+        private final Rect bounds = new Rect();
+
+        GridAccessibilityHelper(@NonNull View host) {
+            super(host);
+        }
+
+        @Override
+        protected int getVirtualViewAt(float x, float y) {
+            int day = getDayAt(x, y);
+            return day != 0 ? day : INVALID_ID;
+        }
+
+        @Override
+        protected void getVisibleVirtualViews(List<Integer> virtualViewIds) {
+            if (model == null) {
+                return;
+            }
+            for (int day = 1; day <= model.daysCount; day++) {
+                virtualViewIds.add(day);
+            }
+        }
+
+        @SuppressWarnings("deprecation")
+        @Override
+        protected void onPopulateNodeForVirtualView(int virtualViewId, @NonNull AccessibilityNodeInfoCompat node) {
+            if (model == null || virtualViewId > model.daysCount) {
+                // The month changed, the node is not used any longer
+                bounds.setEmpty();
+                node.setContentDescription("");
+                node.setBoundsInParent(bounds);
+                return;
+            }
+            getDayBounds(virtualViewId, bounds);
+            node.setContentDescription(model.descriptions[virtualViewId - 1]);
+            node.setBoundsInParent(bounds);
+            node.setClickable(true);
+            node.addAction(AccessibilityNodeInfoCompat.ACTION_CLICK);
+        }
+
+        @Override
+        protected boolean onPerformActionForVirtualView(int virtualViewId, int action, @Nullable Bundle arguments) {
+            if (action == AccessibilityNodeInfoCompat.ACTION_CLICK) {
+                performDayClick(virtualViewId);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        protected void onVirtualViewKeyboardFocusChanged(int virtualViewId, boolean hasFocus) {
+            invalidate();
+        }
+    }
+}
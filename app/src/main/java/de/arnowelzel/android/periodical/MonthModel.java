@@ -0,0 +1,213 @@
+/*
+ * Periodical month model class
+ * Copyright (C) 2012-2025 Arno Welzel
+ *
+ * This code is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.arnowelzel.android.periodical;
+
+import android.content.Context;
+import android.text.format.DateUtils;
+
+import java.time.format.DateTimeFormatter;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+
+/**
+ * Prepared content of the calendar view for one month
+ *
+ * <br><br><i>All values needed to display the cells are determined once, so showing a month
+ * again only needs to pass them to the cells. Whether a cell is the current day is not part of
+ * the model, since this changes independently of the data.</i>
+ */
+class MonthModel {
+    /**
+     * Flag for cells with intercourse
+     */
+    final static int FLAG_INTERCOURSE = 1;
+    /**
+     * Flag for cells with notes or other symptoms
+     */
+    final static int FLAG_NOTES = 2;
+
+    /**
+     * Labels for the days of a month
+     */
+    private final static String[] DAY_LABELS = new String[31];
+
+    static {
+        for (int day = 1; day <= 31; day++) {
+            DAY_LABELS[day - 1] = Integer.toString(day);
+        }
+    }
+
+    /**
+     * Year
+     */
+    final int year;
+    /**
+     * Month (1-12)
+     */
+    final int month;
+    /**
+     * Index of the cell with the first day of the month (1-7)
+     */
+    final int firstDayOfWeek;
+    /**
+     * Number of days in the month
+     */
+    final int daysCount;
+    /**
+     * Month and year as displayed above the calendar
+     */
+    final String title;
+    /**
+     * Entry types for each day of the month
+     */
+    final byte[] types;
+    /**
+     * Days of cycle for each day of the month, 0 if not displayed
+     */
+    final short[] daysOfCycle;
+    /**
+     * Intensities for each day of the month
+     */
+    final byte[] intensities;
+    /**
+     * Flags for each day of the month
+     */
+    final byte[] flags;
+    /**
+     * Content descriptions for each day of the month
+     */
+    final String[] descriptions;
+
+    /**
+     * Prepare a month
+     *
+     * @param context     Application context
+     * @param snapshot    Calculation result to get the entries from
+     * @param titleFormat Format for the title
+     * @param year        Year
+     * @param month       Month (1-12)
+     * @param startOfWeek First day of the week (0 = sunday)
+     * @param showCycle   true if the day of cycle is displayed
+     */
+    MonthModel(Context context, CalculationSnapshot snapshot, DateTimeFormatter titleFormat,
+               int year, int month, int startOfWeek, boolean showCycle) {
+        this.year = year;
+        this.month = month;
+
+        GregorianCalendar cal = new GregorianCalendar(year, month - 1, 1);
+        title = titleFormat.format(cal.toZonedDateTime());
+
+        // Adjust first day of week to selected start day of week
+        int firstDay = cal.get(Calendar.DAY_OF_WEEK) - startOfWeek;
+        if (firstDay <= 0) firstDay += 7;
+        firstDayOfWeek = firstDay;
+        daysCount = cal.getActualMaximum(Calendar.DAY_OF_MONTH);
+
+        types = new byte[daysCount];
+        daysOfCycle = new short[daysCount];
+        intensities = new byte[daysCount];
+        flags = new byte[daysCount];
+        descriptions = new String[daysCount];
+
+        int intercourse = 1 << DayEntry.SYMPTOM_INTERCOURSE;
+        for (int index = 0; index < daysCount; index++) {
+            DayEntry entry = snapshot.getEntry(cal);
+            int type = DayEntry.EMPTY;
+            if (entry != null) {
+                type = entry.type;
+                types[index] = (byte) type;
+                daysOfCycle[index] = (short) (showCycle ? entry.dayofcycle : 0);
+                intensities[index] = (byte) entry.intensity;
+
+                // Intercourse has its own marker, all other symptoms are shown as notes
+                int flag = 0;
+                if ((entry.symptoms & intercourse) != 0) flag |= FLAG_INTERCOURSE;
+                if ((entry.symptoms & ~intercourse) != 0 || !entry.notes.isEmpty()) flag |= FLAG_NOTES;
+                flags[index] = (byte) flag;
+            }
+            descriptions[index] = getContentDescription(context, year, month, index + 1, type);
+
+            cal.add(GregorianCalendar.DATE, 1);
+        }
+    }
+
+    /**
+     * Get the label of a day
+     *
+     * @param day Day of month (1-31)
+     */
+    static String getLabel(int day) {
+        return DAY_LABELS[day - 1];
+    }
+
+    /**
+     * Get the last day of the month
+     *
+     * @return Day as number of days since 1970-01-01
+     */
+    int getLastEventday() {
+        return DayStore.epochDay(year, month, daysCount);
+    }
+
+    /**
+     * Build the content description for a day
+     *
+     * @param context Application context
+     * @param year    Year
+     * @param month   Month (1-12)
+     * @param day     Day of month (1-31)
+     * @param type    Entry type as in database
+     * @return The description for TalkBack
+     */
+    private static String getContentDescription(Context context, int year, int month, int day, int type) {
+        GregorianCalendarExt cal = new GregorianCalendarExt();
+        cal.set(year, month - 1, day);
+        String contentDescription = DateUtils.formatDateTime(context, cal.getTimeInMillis(),
+                DateUtils.FORMAT_SHOW_DATE | DateUtils.FORMAT_SHOW_YEAR);
+
+        switch (type) {
+            case DayEntry.PERIOD_START:
+                contentDescription += " - " + context.getResources().getString(R.string.label_period_started);
+                break;
+            case DayEntry.PERIOD_CONFIRMED:
+                contentDescription += " - " + context.getResources().getString(R.string.label_period);
+                break;
+            case DayEntry.PERIOD_PREDICTED:
+                contentDescription += " - " + context.getResources().getString(R.string.label_period_predicted);
+                break;
+            case DayEntry.FERTILITY_PREDICTED:
+            case DayEntry.FERTILITY_FUTURE:
+                contentDescription += " - " + context.getResources().getString(R.string.label_fertile);
+                break;
+            case DayEntry.OVULATION_PREDICTED:
+            case DayEntry.OVULATION_FUTURE:
+                contentDescription += " - " + context.getResources().getString(R.string.label_ovulation);
+                break;
+            case DayEntry.INFERTILE_PREDICTED:
+            case DayEntry.INFERTILE_FUTURE:
+                contentDescription += " - " + context.getResources().getString(R.string.label_infertile);
+                break;
+            case DayEntry.FERTILITY_STANDARD_PREDICTED:
+            case DayEntry.FERTILITY_STANDARD_FUTURE:
+                contentDescription += " - " + context.getResources().getString(R.string.label_fertile_standard);
+                break;
+        }
+        return contentDescription;
+    }
+}
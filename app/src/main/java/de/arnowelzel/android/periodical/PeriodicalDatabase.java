@@ -24,7 +24,10 @@ import android.content.SharedPreferences;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
 import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.JsonReader;
 import android.util.JsonWriter;
 
@@ -42,9 +45,12 @@ import java.io.OutputStreamWriter;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.GregorianCalendar;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
-import java.util.Vector;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 
@@ -52,6 +58,12 @@ import static java.lang.String.*;
 
 /**
  * Database of the app
+ *
+ * <br><br><i>Writes and calculations can be queued to run on a single background thread.
+ * Results are published as immutable snapshots for the UI. Methods which change the database
+ * or the calculation are synchronized, so they can still be called directly as well. The main
+ * thread must only use the asynchronous methods, since the synchronized ones may have to wait
+ * for a long calculation, backup or restore on the background thread.</i>
  */
 @SuppressLint("DefaultLocale")
 class PeriodicalDatabase {
@@ -63,6 +75,14 @@ class PeriodicalDatabase {
     public final Boolean DEFAULT_SHOW_CYCLE = true;
     private final String fileNameBackup = "Periodical-backup.json.gz";
 
+    /**
+     * SQL expression to calculate the epoch day (days since 1970-01-01) from the
+     * date string "yyyyMMdd" in the column "eventdate"
+     */
+    private final static String EVENTDAY_FROM_EVENTDATE =
+            "cast(julianday(substr(eventdate, 1, 4) || '-' || substr(eventdate, 5, 2) || '-' || " +
+                    "substr(eventdate, 7, 2)) - 2440587.5 as integer)";
+
     /**
      * Helper to create or open database
      */
@@ -74,7 +94,14 @@ class PeriodicalDatabase {
         /**
          * Version of the database
          */
-        final static int DATABASE_VERSION = 6;
+        final static int DATABASE_VERSION = 9;
+        /**
+         * Version of the backup format
+         *
+         * <br><br><i>Backups only contain the date strings, so the format did not change
+         * since version 6 of the database and older releases can still restore them</i>
+         */
+        final static int BACKUP_VERSION = 6;
 
         /**
          * Create a new database for the app
@@ -98,7 +125,9 @@ class PeriodicalDatabase {
                     "eventdate varchar(8), " +
                     "eventcvx integer(3), " +
                     "eventtemp real, " +
-                    "intensity integer(3)" +
+                    "intensity integer(3), " +
+                    "eventday integer, " +
+                    "symptoms integer not null default 0" +
                     ");");
             db.execSQL("create table options (" +
                     "name varchar(100), " +
@@ -106,12 +135,10 @@ class PeriodicalDatabase {
                     ");");
             db.execSQL("create table notes (" +
                     "eventdate varchar(8), " +
-                    "content text" +
-                    ");");
-            db.execSQL("create table symptoms (" +
-                    "eventdate varchar(8), " +
-                    "symptom integer(3)" +
+                    "content text, " +
+                    "eventday integer" +
                     ");");
+            createIndexes(db);
             db.setTransactionSuccessful();
             db.endTransaction();
         }
@@ -192,6 +219,10 @@ class PeriodicalDatabase {
                 db.execSQL(statement, new String[]{option, DEFAULT_CYCLE_LENGTH.toString()});
 
                 // Fill database with additional entries for the period days
+                SQLiteStatement statementUpdate = db.compileStatement(
+                        "update data set intensity = ? where eventdate = ?");
+                SQLiteStatement statementInsert = db.compileStatement(
+                        "insert into data (eventdate, eventtype, intensity) values (?, ?, ?)");
                 statement = "select eventtype, eventdate from data order by eventdate desc";
                 Cursor result = db.rawQuery(statement, null);
                 while (result.moveToNext()) {
@@ -206,15 +237,12 @@ class PeriodicalDatabase {
 
                     // Add default intensity for existing period
                     int intensity = 2;
-                    statement = format(
-                            Locale.ENGLISH,
-                            "update data set intensity=%d where eventdate='%s'",
-                            intensity,
-                            format(Locale.ENGLISH, "%04d%02d%02d",
-                                    eventdate.get(GregorianCalendar.YEAR),
-                                    eventdate.get(GregorianCalendar.MONTH) + 1,
-                                    eventdate.get(GregorianCalendar.DAY_OF_MONTH)));
-                    db.execSQL(statement);
+                    statementUpdate.bindLong(1, intensity);
+                    statementUpdate.bindString(2, format(Locale.ENGLISH, "%04d%02d%02d",
+                            eventdate.get(GregorianCalendar.YEAR),
+                            eventdate.get(GregorianCalendar.MONTH) + 1,
+                            eventdate.get(GregorianCalendar.DAY_OF_MONTH)));
+                    statementUpdate.executeUpdateDelete();
 
                     // Add additional entries for each day of the period
                     if (eventtype == DayEntry.PERIOD_START) {
@@ -226,22 +254,21 @@ class PeriodicalDatabase {
                         for (int day = 2; day <= periodlength; day++) {
                             eventdate.add(GregorianCalendar.DATE, 1);
 
-                            statement = format(
-                                    Locale.ENGLISH,
-                                    "insert into data (eventdate, eventtype, intensity) values ('%s', %d, %d)",
-                                    format(Locale.ENGLISH, "%04d%02d%02d",
-                                            eventdate.get(GregorianCalendar.YEAR),
-                                            eventdate.get(GregorianCalendar.MONTH) + 1,
-                                            eventdate.get(GregorianCalendar.DAY_OF_MONTH)),
-                                    eventtype,
-                                    intensity);
-                            db.execSQL(statement);
+                            statementInsert.bindString(1, format(Locale.ENGLISH, "%04d%02d%02d",
+                                    eventdate.get(GregorianCalendar.YEAR),
+                                    eventdate.get(GregorianCalendar.MONTH) + 1,
+                                    eventdate.get(GregorianCalendar.DAY_OF_MONTH)));
+                            statementInsert.bindLong(2, eventtype);
+                            statementInsert.bindLong(3, intensity);
+                            statementInsert.executeInsert();
 
                             if (intensity > 1) intensity--;
                         }
                     }
                 }
                 result.close();
+                statementUpdate.close();
+                statementInsert.close();
 
                 db.setTransactionSuccessful();
                 db.endTransaction();
@@ -251,18 +278,18 @@ class PeriodicalDatabase {
                 db.beginTransaction();
 
                 // Add missing placeholders for details which might have been removed when deleting a period day
+                SQLiteStatement statementInsert = db.compileStatement(
+                        "insert into data (eventdate, eventtype, intensity) values (?, 0, 0)");
                 @SuppressLint("Recycle") Cursor resultSymptoms = db.rawQuery("select eventdate from symptoms group by eventdate", null);
                 while (resultSymptoms.moveToNext()) {
                     String dbdate = resultSymptoms.getString(0);
-                    @SuppressLint("Recycle") Cursor resultData = db.rawQuery(format(Locale.ENGLISH, "select eventtype from data where eventdate='%s'", dbdate), null);
+                    @SuppressLint("Recycle") Cursor resultData = db.rawQuery("select eventtype from data where eventdate = ?", new String[]{dbdate});
                     if(!resultData.moveToNext()) {
-                        String statement = format(
-                                Locale.ENGLISH,
-                                "insert into data (eventdate, eventtype, intensity) values ('%s', 0, 0)",
-                                dbdate);
-                        db.execSQL(statement);
+                        statementInsert.bindString(1, dbdate);
+                        statementInsert.executeInsert();
                     }
                 }
+                statementInsert.close();
 
                 // Clean up unused note entries
                 db.execSQL("delete from notes where content=''");
@@ -285,104 +312,219 @@ class PeriodicalDatabase {
                 // Therefore we check for days which have more then one record and remove all
                 // records with eventtype 0 for these days.
 
+                SQLiteStatement statementDelete = db.compileStatement(
+                        "delete from data where eventtype = 0 and eventdate = ?");
                 @SuppressLint("Recycle") Cursor resultCheck = db.rawQuery("select eventdate, count from (select eventdate, sum(1) as count from data group by eventdate) where count>1", null);
                 while (resultCheck.moveToNext()) {
                     String dbdate = resultCheck.getString(0);
-                    String statement = format(
-                            Locale.ENGLISH,
-                            "delete from data where eventtype = 0 and eventdate = '%s'",
-                            dbdate);
-                    db.execSQL(statement);
+                    statementDelete.bindString(1, dbdate);
+                    statementDelete.executeUpdateDelete();
                 }
+                statementDelete.close();
+
+                db.setTransactionSuccessful();
+                db.endTransaction();
+            }
+
+            if (oldVersion < 7 && newVersion >= 7) {
+                db.beginTransaction();
+
+                // Version 7 stores the date additionally as number of days since 1970-01-01,
+                // so queries can compare and sort integers instead of parsing date strings
+                db.execSQL("alter table data add column eventday integer");
+                db.execSQL("alter table notes add column eventday integer");
+                db.execSQL("alter table symptoms add column eventday integer");
+                updateEventDays(db);
+
+                db.setTransactionSuccessful();
+                db.endTransaction();
+            }
+
+            if (oldVersion < 8 && newVersion >= 8) {
+                db.beginTransaction();
+
+                // Version 8 only allows one record per day in the data table, so
+                // remove remaining duplicates first. Placeholders for details with eventtype 0
+                // are removed if there is another record for that day (see version 6),
+                // otherwise the oldest record is kept as this is the one which was used
+                // for the calculation before.
+                db.execSQL("delete from data where eventtype = 0 and eventday in " +
+                        "(select eventday from data where eventtype <> 0)");
+                db.execSQL("delete from data where eventday is not null and rowid not in " +
+                        "(select min(rowid) from data group by eventday)");
+                createIndexes(db);
 
                 db.setTransactionSuccessful();
                 db.endTransaction();
             }
+
+            if (oldVersion < 9 && newVersion >= 9) {
+                db.beginTransaction();
+
+                // Version 9 stores the symptoms of a day as bitmask in the data table
+                // instead of one record per symptom in a separate table
+                db.execSQL("alter table data add column symptoms integer not null default 0");
+
+                // Make sure there is a record for every day with symptoms (see version 5)
+                db.execSQL("insert or ignore into data (eventdate, eventday, eventtype, intensity) " +
+                        "select min(eventdate), eventday, 0, 0 from symptoms " +
+                        "where eventday is not null group by eventday");
+                db.execSQL("update data set symptoms = coalesce(" +
+                        "(select sum(distinct 1 << symptom) from symptoms " +
+                        "where symptoms.eventday = data.eventday " +
+                        "and symptom between 1 and " + DayEntry.SYMPTOM_MAX + "), 0)");
+                db.execSQL("drop table symptoms");
+
+                db.setTransactionSuccessful();
+                db.endTransaction();
+            }
+        }
+
+        /**
+         * Create indexes for all date based lookups
+         *
+         * @param db The database
+         */
+        private void createIndexes(SQLiteDatabase db) {
+            db.execSQL("create unique index data_eventday on data (eventday)");
+            db.execSQL("create index notes_eventday on notes (eventday)");
         }
     }
 
+    /**
+     * Calculate the epoch day column for all rows from the date string
+     *
+     * @param db The database
+     */
+    private static void updateEventDays(SQLiteDatabase db) {
+        db.execSQL("update data set eventday = " + EVENTDAY_FROM_EVENTDATE);
+        db.execSQL("update notes set eventday = " + EVENTDAY_FROM_EVENTDATE);
+        db.execSQL("update symptoms set eventday = " + EVENTDAY_FROM_EVENTDATE);
+    }
+
     /* Reference to database */
     private SQLiteDatabase db;
 
+    /*
+     * Statements used to modify the database. The date string in "eventdate" is created by
+     * SQLite from the epoch day in parameter 1, so only integers need to be bound.
+     */
+    private final static String SQL_INSERT_DATA_IF_MISSING =
+            "insert or ignore into data (eventdate, eventday, eventtype, intensity) " +
+                    "values (strftime('%Y%m%d', ?1 * 86400, 'unixepoch'), ?1, ?2, ?3)";
+    private final static String SQL_UPDATE_DATA =
+            "update data set eventtype = ?, intensity = ? where eventday = ?";
+    private final static String SQL_UPDATE_DATA_PLACEHOLDER =
+            "update data set eventtype = ?, intensity = ? where eventday = ? and eventtype = 0";
+    private final static String SQL_UPDATE_DATA_TYPE =
+            "update data set eventtype = ? where eventday = ?";
+    private final static String SQL_UPDATE_DATA_SYMPTOMS =
+            "update data set symptoms = ? where eventday = ?";
+    private final static String SQL_UPDATE_DATA_INTENSITY =
+            "update data set intensity = ? where eventday = ?";
+    private final static String SQL_DELETE_DATA =
+            "delete from data where eventday = ?";
+    private final static String SQL_DELETE_DATA_WITHOUT_DETAILS =
+            "delete from data where eventday = ?1 and symptoms = 0 and not exists " +
+                    "(select 1 from notes where notes.eventday = ?1 and content <> '')";
+    private final static String SQL_SELECT_DATA_TYPE =
+            "select coalesce(max(eventtype), 0) from data where eventday = ?";
+    private final static String SQL_INSERT_NOTES =
+            "insert into notes (eventdate, eventday, content) " +
+                    "values (strftime('%Y%m%d', ?1 * 86400, 'unixepoch'), ?1, ?2)";
+    private final static String SQL_DELETE_NOTES =
+            "delete from notes where eventday = ?";
+    private final static String SQL_INSERT_OPTION =
+            "insert into options (name, value) values (?, ?)";
+    private final static String SQL_DELETE_OPTION =
+            "delete from options where name = ?";
+
+    /**
+     * Compiled statements of the current database connection
+     */
+    private final HashMap<String, SQLiteStatement> statements = new HashMap<>();
+
+    /**
+     * Cached cycle boundaries for single day lookups
+     */
+    private boolean cycleCacheValid = false;
+    private int cycleCacheStart;
+    private int cycleCacheEnd;
+
     /**
-     * Local helper to manage calculated calendar entries
+     * Calculation of the day entries
      */
-    public static class DayEntry {
-        final static int EMPTY = 0;
-        final static int PERIOD_START = 1;
-        final static int PERIOD_CONFIRMED = 2;
-        final static int PERIOD_PREDICTED = 3;
-        final static int FERTILITY_PREDICTED = 4;
-        final static int OVULATION_PREDICTED = 5;
-        final static int FERTILITY_FUTURE = 6;
-        final static int OVULATION_FUTURE = 7;
-        final static int INFERTILE_PREDICTED = 8;
-        final static int INFERTILE_FUTURE = 9;
-        final static int FERTILITY_STANDARD_PREDICTED = 10;
-        final static int FERTILITY_STANDARD_FUTURE = 11;
-        int type;
-        final GregorianCalendarExt date;
-        int dayofcycle;
-        int intensity;
-        String notes;
-        List<Integer> symptoms;
+    private final CycleCalculator calculator;
 
+    /**
+     * Private reference to application context
+     */
+    private final Context context;
+
+    /**
+     * Listener for new calculation results
+     */
+    interface SnapshotListener {
         /**
-         * Construct a new day entry with parameters
+         * Called on the main thread when a calculation is finished
          *
-         * @param type       Entry type (DayEntry.EMPTY, DayEntry.PERIOD_START, DayEntry.PERIOD_CONFIRMED, ...)
-         * @param date       Entry date
-         * @param dayofcycle Day within current cycle (beginning with 1)
-         * @param intensity  Intensity of the period (1-4)
+         * @param snapshot Result of the calculation
          */
-        DayEntry(int type, GregorianCalendar date, int dayofcycle, int intensity) {
-            this.type = type;
-            this.date = new GregorianCalendarExt();
-            this.date.setTime(date.getTime());
-            this.dayofcycle = dayofcycle;
-            this.intensity = intensity;
-            this.notes = "";
-            this.symptoms = new ArrayList<>();
-        }
+        void onSnapshot(CalculationSnapshot snapshot);
+    }
 
+    /**
+     * Listener for new statistics
+     */
+    interface StatisticsListener {
         /**
-         * Construct a new day entry
+         * Called on the main thread when the statistics are available
+         *
+         * @param statistics Statistics of all cycles
          */
-        DayEntry() {
-            this.type = EMPTY;
-            this.date = new GregorianCalendarExt();
-            this.dayofcycle = 0;
-            this.intensity = 1;
-            this.notes = "";
-            this.symptoms = new ArrayList<>();
-        }
+        void onStatistics(CycleStatistics statistics);
     }
 
     /**
-     * Calculated day entries
+     * Listener for days loaded from the database
      */
-    final Vector<DayEntry> dayEntries;
+    interface EntriesListener {
+        /**
+         * Called on the main thread when the days are available
+         *
+         * @param entries The days
+         */
+        void onEntries(List<DayEntry> entries);
+    }
+
     /**
-     * Number of cycles
+     * Listener for a single day loaded from the database
      */
-    int cycleCount;
+    interface EntryListener {
+        /**
+         * Called on the main thread when the day is available
+         *
+         * @param entry The day
+         */
+        void onEntry(DayEntry entry);
+    }
+
     /**
-     * Calculated average cycle length
+     * Single thread for all background writes and calculations
      */
-    int cycleAverage;
+    private final ExecutorService executor;
     /**
-     * Calculated longest cycle length
+     * Handler to deliver results to the main thread
      */
-    int cycleLongest;
+    private final Handler handler;
     /**
-     * Calculated shortest cycle length
+     * Result of the last finished calculation
      */
-    int cycleShortest;
-
+    private volatile CalculationSnapshot snapshot = CalculationSnapshot.EMPTY;
     /**
-     * Private reference to application context
+     * Flag if the database was closed and no more results must be delivered
      */
-    private final Context context;
+    private volatile boolean closed = false;
 
     /**
      * Constructor, will try to create/open a writable database
@@ -393,7 +535,10 @@ class PeriodicalDatabase {
         this.context = context;
         open();
 
-        dayEntries = new Vector<>();
+        calculator = new CycleCalculator();
+
+        executor = Executors.newSingleThreadExecutor();
+        handler = new Handler(Looper.getMainLooper());
     }
 
     /**
@@ -408,10 +553,219 @@ class PeriodicalDatabase {
 
     /**
      * Close the database
+     *
+     * <br><br><i>Tasks already queued for the background thread will be finished first,
+     * but their results are not delivered any longer. The database itself is closed by the
+     * background thread after these tasks, so the caller does not have to wait for them.</i>
      */
     void close() {
-        if (db != null)
-            db.close();
+        closed = true;
+        executor.execute(() -> {
+            synchronized (this) {
+                closeStatements();
+                if (db != null)
+                    db.close();
+            }
+        });
+        executor.shutdown();
+    }
+
+    /**
+     * Get the result of the last finished calculation
+     *
+     * @return The snapshot, which is empty if no calculation was finished yet
+     */
+    CalculationSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Queue a task to be done on the background thread
+     *
+     * <br><br><i>All tasks are done one after another in the order they were queued, so a
+     * calculation which is queued after a change will always include this change.</i>
+     *
+     * @param task Task to be done
+     * @return Future to wait for the task
+     */
+    Future<?> execute(Runnable task) {
+        return executor.submit(task);
+    }
+
+    /**
+     * Get the calculated data in the background, calculating it only if needed
+     *
+     * <br><br><i>The listener gets the result of all calculations queued before. A new
+     * calculation is only done if nothing was calculated yet.</i>
+     *
+     * @param listener Listener to be called with the result or null
+     * @return Future to wait for the result
+     */
+    Future<CalculationSnapshot> getCalculatedDataAsync(SnapshotListener listener) {
+        return executor.submit(() -> {
+            if (snapshot == CalculationSnapshot.EMPTY) {
+                loadCalculatedData();
+            }
+            return deliverSnapshot(listener);
+        });
+    }
+
+    /**
+     * Update the calculation in the background
+     *
+     * @param listener Listener to be called with the result or null
+     * @return Future to wait for the result
+     */
+    Future<CalculationSnapshot> loadCalculatedDataAsync(SnapshotListener listener) {
+        return executor.submit(() -> {
+            loadCalculatedData();
+            return deliverSnapshot(listener);
+        });
+    }
+
+    /**
+     * Update the calculation in the background after the entries of a specific day were changed
+     *
+     * @param date     Date of the changed entry
+     * @param listener Listener to be called with the result or null
+     * @return Future to wait for the result
+     */
+    Future<CalculationSnapshot> updateCalculatedDataAsync(GregorianCalendar date, SnapshotListener listener) {
+        return executor.submit(() -> {
+            updateCalculatedData(date);
+            return deliverSnapshot(listener);
+        });
+    }
+
+    /**
+     * Get the statistics of all cycles in the background
+     *
+     * @param listener Listener to be called with the result or null
+     * @return Future to wait for the result
+     */
+    Future<CycleStatistics> getStatisticsAsync(StatisticsListener listener) {
+        return executor.submit(() -> {
+            final CycleStatistics statistics = getStatistics();
+            if (listener != null) {
+                deliver(() -> listener.onStatistics(statistics));
+            }
+            return statistics;
+        });
+    }
+
+    /**
+     * Load the period starts in the background
+     *
+     * @param listener Listener to be called with the result
+     * @return Future to wait for the result
+     */
+    Future<List<DayEntry>> loadRawDataAsync(EntriesListener listener) {
+        return executor.submit(() -> {
+            final List<DayEntry> entries = loadRawData();
+            deliver(() -> listener.onEntries(entries));
+            return entries;
+        });
+    }
+
+    /**
+     * Load all days with data or details in the background
+     *
+     * @param listener Listener to be called with the result
+     * @return Future to wait for the result
+     */
+    Future<List<DayEntry>> loadRawDataWithDetailsAsync(EntriesListener listener) {
+        return executor.submit(() -> {
+            final List<DayEntry> entries = loadRawDataWithDetails();
+            deliver(() -> listener.onEntries(entries));
+            return entries;
+        });
+    }
+
+    /**
+     * Get a specific day including all details in the background
+     *
+     * <br><br><i>All changes queued before are included.</i>
+     *
+     * @param year     Year including century
+     * @param month    Month (1-12)
+     * @param day      Day of the month (1-31)
+     * @param listener Listener to be called with the result
+     * @return Future to wait for the result
+     */
+    Future<DayEntry> getEntryWithDetailsAsync(int year, int month, int day, EntryListener listener) {
+        return executor.submit(() -> {
+            final DayEntry entry = getEntryWithDetails(year, month, day);
+            deliver(() -> listener.onEntry(entry));
+            return entry;
+        });
+    }
+
+    /**
+     * Store a named option in the background
+     *
+     * @param name  Name of the option to store
+     * @param value Value of the option to store
+     * @return Future to wait for the write
+     */
+    Future<?> setOptionAsync(String name, int value) {
+        return executor.submit(() -> setOption(name, value));
+    }
+
+    /**
+     * Call a listener on the main thread, unless the database was closed in the meantime
+     *
+     * @param callback Call of the listener
+     */
+    private void deliver(Runnable callback) {
+        handler.post(() -> {
+            if (!closed) {
+                callback.run();
+            }
+        });
+    }
+
+    /**
+     * Pass the current snapshot to a listener on the main thread
+     *
+     * @param listener Listener to be called or null
+     * @return The current snapshot
+     */
+    private CalculationSnapshot deliverSnapshot(SnapshotListener listener) {
+        final CalculationSnapshot result = snapshot;
+        if (listener != null) {
+            deliver(() -> listener.onSnapshot(result));
+        }
+        return result;
+    }
+
+    /**
+     * Get a compiled statement for the current database connection
+     *
+     * <br><br><i>Statements are only compiled once per connection and reused with new
+     * bindings, so SQLite does not need to parse and plan them again for every call</i>
+     *
+     * @param sql SQL of the statement
+     * @return The compiled statement without any bindings
+     */
+    private SQLiteStatement getStatement(String sql) {
+        SQLiteStatement statement = statements.get(sql);
+        if (statement == null) {
+            statement = db.compileStatement(sql);
+            statements.put(sql, statement);
+        } else {
+            statement.clearBindings();
+        }
+        return statement;
+    }
+
+    /**
+     * Release all compiled statements of the current database connection
+     */
+    private void closeStatements() {
+        for (SQLiteStatement statement : statements.values()) {
+            statement.close();
+        }
+        statements.clear();
     }
 
     /**
@@ -419,83 +773,34 @@ class PeriodicalDatabase {
      *
      * @param date Date of the entry
      */
-    @SuppressLint("DefaultLocale")
-    void addPeriod(GregorianCalendar date) {
-        String statement;
+    synchronized void addPeriod(GregorianCalendar date) {
+        SQLiteStatement statement;
+
+        // Cycle boundaries may change
+        cycleCacheValid = false;
 
-        GregorianCalendar dateLocal = new GregorianCalendar();
-        dateLocal.setTime(date.getTime());
-        dateLocal.add(GregorianCalendar.DATE, -1);
-        int type = getEntryType(dateLocal);
+        int eventday = DayStore.epochDay(date);
+        int type = getStoredType(eventday - 1);
         if (type == DayEntry.PERIOD_START || type == DayEntry.PERIOD_CONFIRMED) {
             // The day before was a confirmed day of the period, then add the current day
-            String datestring = format(Locale.ENGLISH, "%04d%02d%02d",
-                    date.get(GregorianCalendar.YEAR),
-                    date.get(GregorianCalendar.MONTH) + 1,
-                    date.get(GregorianCalendar.DAY_OF_MONTH));
-
-            type = DayEntry.PERIOD_CONFIRMED;
-            db.beginTransaction();
-            statement = format(
-                    Locale.ENGLISH,
-                    "delete from data where eventdate = '%s'",
-                    datestring);
-            db.execSQL(statement);
-            statement = format(
-                    Locale.ENGLISH,
-                    "insert into data (eventdate, eventtype, intensity) values ('%s', %d, 1)",
-                    datestring,
-                    type);
-            db.execSQL(statement);
-            db.setTransactionSuccessful();
-            db.endTransaction();
+            // An existing placeholder for details at this day will be used
+            setData(eventday, DayEntry.PERIOD_CONFIRMED, 1);
         } else {
-            // Remove placeholder for details at this day
-            statement = format(
-                    Locale.ENGLISH,
-                    "delete from data where eventdate='%s'",
-                    format(Locale.ENGLISH, "%04d%02d%02d",
-                            date.get(GregorianCalendar.YEAR),
-                            date.get(GregorianCalendar.MONTH) + 1,
-                            date.get(GregorianCalendar.DAY_OF_MONTH)));
-            db.execSQL(statement);
-
             // Probably start a new period
-            String dateString = format(Locale.ENGLISH, "%04d%02d%02d",
-                    date.get(GregorianCalendar.YEAR),
-                    date.get(GregorianCalendar.MONTH) + 1,
-                    date.get(GregorianCalendar.DAY_OF_MONTH));
-            dateLocal.setTime(date.getTime());
-            dateLocal.add(GregorianCalendar.DATE, 1);
-            type = getEntryType(dateLocal);
+            type = getStoredType(eventday + 1);
             if (type == DayEntry.PERIOD_START) {
                 // The next day is already marked as new period then move the period start
                 // to this day
                 db.beginTransaction();
 
                 // First insert a new start
-                statement = format(
-                        Locale.ENGLISH,
-                        "delete from data where eventdate = '%s'",
-                        dateString);
-                db.execSQL(statement);
-                statement = format(
-                        Locale.ENGLISH,
-                        "insert into data (eventdate, eventtype, intensity) values ('%s', %d, 2)",
-                        dateString,
-                        type);
-                db.execSQL(statement);
+                setData(eventday, type, 2);
 
                 // Update old start to be a confirmed day
-                statement = format(
-                        Locale.ENGLISH,
-                        "update data set eventtype=%d where eventdate = '%s'",
-                        DayEntry.PERIOD_CONFIRMED,
-                        format(Locale.ENGLISH, "%04d%02d%02d",
-                                dateLocal.get(GregorianCalendar.YEAR),
-                                dateLocal.get(GregorianCalendar.MONTH) + 1,
-                                dateLocal.get(GregorianCalendar.DAY_OF_MONTH)));
-                db.execSQL(statement);
+                statement = getStatement(SQL_UPDATE_DATA_TYPE);
+                statement.bindLong(1, DayEntry.PERIOD_CONFIRMED);
+                statement.bindLong(2, eventday + 1);
+                statement.executeUpdateDelete();
 
                 db.setTransactionSuccessful();
                 db.endTransaction();
@@ -507,23 +812,24 @@ class PeriodicalDatabase {
                 periodLength = preferences.getInt("period_length", DEFAULT_PERIOD_LENGTH);
 
                 type = DayEntry.PERIOD_START;
-                dateLocal.setTime(date.getTime());
                 int intensity = 2;
 
                 db.beginTransaction();
+
+                // Use placeholders for details at the days of the period,
+                // existing period entries will be kept
+                SQLiteStatement statementUpdate = getStatement(SQL_UPDATE_DATA_PLACEHOLDER);
+                statement = getStatement(SQL_INSERT_DATA_IF_MISSING);
                 for (int day = 0; day < periodLength; day++) {
-                    String datestringlocal = format(Locale.ENGLISH, "%04d%02d%02d",
-                            dateLocal.get(GregorianCalendar.YEAR),
-                            dateLocal.get(GregorianCalendar.MONTH) + 1,
-                            dateLocal.get(GregorianCalendar.DAY_OF_MONTH));
-
-                    statement = format(
-                            Locale.ENGLISH,
-                            "insert into data (eventdate, eventtype, intensity) values ('%s', %d, %d)",
-                            datestringlocal,
-                            type,
-                            intensity);
-                    db.execSQL(statement);
+                    statement.bindLong(1, eventday + day);
+                    statement.bindLong(2, type);
+                    statement.bindLong(3, intensity);
+                    statement.executeInsert();
+
+                    statementUpdate.bindLong(1, type);
+                    statementUpdate.bindLong(2, intensity);
+                    statementUpdate.bindLong(3, eventday + day);
+                    statementUpdate.executeUpdateDelete();
 
                     type = DayEntry.PERIOD_CONFIRMED;
 
@@ -532,7 +838,6 @@ class PeriodicalDatabase {
                     else {
                         if (intensity > 1) intensity--;
                     }
-                    dateLocal.add(GregorianCalendar.DATE, 1);
                 }
                 db.setTransactionSuccessful();
                 db.endTransaction();
@@ -540,48 +845,73 @@ class PeriodicalDatabase {
         }
     }
 
+    /**
+     * Set type and intensity of a specific day, keeping existing details
+     *
+     * @param eventday  Day as number of days since 1970-01-01
+     * @param type      Entry type
+     * @param intensity Intensity of the period (1-4)
+     */
+    private void setData(int eventday, int type, int intensity) {
+        SQLiteStatement statement = getStatement(SQL_INSERT_DATA_IF_MISSING);
+        statement.bindLong(1, eventday);
+        statement.bindLong(2, type);
+        statement.bindLong(3, intensity);
+        statement.executeInsert();
+
+        statement = getStatement(SQL_UPDATE_DATA);
+        statement.bindLong(1, type);
+        statement.bindLong(2, intensity);
+        statement.bindLong(3, eventday);
+        statement.executeUpdateDelete();
+    }
+
+    /**
+     * Get the type of a specific day as stored in the database
+     *
+     * <br><br><i>Unlike the calculated entries this includes all changes queued before,
+     * even if they are not calculated yet.</i>
+     *
+     * @param eventday Day as number of days since 1970-01-01
+     * @return The stored type or {@link DayEntry#EMPTY} if there is no record for this day
+     */
+    private int getStoredType(int eventday) {
+        SQLiteStatement statement = getStatement(SQL_SELECT_DATA_TYPE);
+        statement.bindLong(1, eventday);
+        return (int) statement.simpleQueryForLong();
+    }
+
     /**
      * Remove an entry for a specific day from the database
      *
      * @param date Date of the entry
      */
-    void removePeriod(GregorianCalendar date) {
-        String statement;
+    synchronized void removePeriod(GregorianCalendar date) {
+        SQLiteStatement statementDelete = getStatement(SQL_DELETE_DATA_WITHOUT_DETAILS);
+        SQLiteStatement statementUpdate = getStatement(SQL_UPDATE_DATA_TYPE);
 
-        GregorianCalendar dateLocal = new GregorianCalendar();
-        dateLocal.setTime(date.getTime());
+        // Cycle boundaries may change
+        cycleCacheValid = false;
+
+        int eventday = DayStore.epochDay(date);
 
         db.beginTransaction();
 
         while (true) {
-            DayEntry day = getEntry(dateLocal);
-            if (null == day) {
+            int type = getStoredType(eventday);
+            if (type != DayEntry.PERIOD_START && type != DayEntry.PERIOD_CONFIRMED) {
                 break;
             }
-            if (day.type == DayEntry.PERIOD_START || day.type == DayEntry.PERIOD_CONFIRMED) {
-                if (day.notes.isEmpty() && day.symptoms.isEmpty()) {
-                    statement = format(
-                            Locale.ENGLISH,
-                            "delete from data where eventdate = '%s'",
-                            format(Locale.ENGLISH, "%04d%02d%02d",
-                                    dateLocal.get(GregorianCalendar.YEAR),
-                                    dateLocal.get(GregorianCalendar.MONTH) + 1,
-                                    dateLocal.get(GregorianCalendar.DAY_OF_MONTH)));
-                } else {
-                    statement = format(
-                            Locale.ENGLISH,
-                            "update data set eventtype = 0 where eventdate = '%s'",
-                            format(Locale.ENGLISH, "%04d%02d%02d",
-                                    dateLocal.get(GregorianCalendar.YEAR),
-                                    dateLocal.get(GregorianCalendar.MONTH) + 1,
-                                    dateLocal.get(GregorianCalendar.DAY_OF_MONTH)));
-                }
-                db.execSQL(statement);
 
-                dateLocal.add(GregorianCalendar.DATE, 1);
-            } else {
-                break;
+            // Days without details are removed, otherwise only the period is removed
+            statementDelete.bindLong(1, eventday);
+            if (statementDelete.executeUpdateDelete() == 0) {
+                statementUpdate.bindLong(1, DayEntry.EMPTY);
+                statementUpdate.bindLong(2, eventday);
+                statementUpdate.executeUpdateDelete();
             }
+
+            eventday++;
         }
 
         db.setTransactionSuccessful();
@@ -591,606 +921,351 @@ class PeriodicalDatabase {
     /**
      * Update the calculation based on the entries in the database
      */
-    @SuppressWarnings("ConstantConditions")
-    @SuppressLint("DefaultLocale")
-    void loadCalculatedData() {
-        DayEntry entry = null;
-        DayEntry entryPrevious = null;
-        DayEntry entryPreviousStart = null;
-        boolean isFirst = true;
-        int count = 0;
-        int countlimit = 1;
-        this.cycleCount = 0;
-        this.cycleAverage = 0;
-        this.cycleLongest = 28;
-        this.cycleShortest = 28;
-        int ovulationday = 0;
-        Cursor result;
-        int periodlength;
-        int luteallength;
-        int maximumcyclelength;
-        int dayofcycle = 1;
-        String dbdateCurrent = "";
-
-        // Get default values from preferences
+    synchronized void loadCalculatedData() {
         PreferenceUtils preferences = new PreferenceUtils(context);
-        periodlength = preferences.getInt("period_length", DEFAULT_PERIOD_LENGTH);
-        luteallength = preferences.getInt("luteal_length", DEFAULT_LUTEAL_LENGTH);
-        maximumcyclelength = preferences.getInt("maximum_cycle_length", DEFAULT_CYCLE_LENGTH);
-
-        // Just a safety measure: limit maximum cycle lengths to the allowed minimum value
-        if (maximumcyclelength < 60) maximumcyclelength = 60;
-
-        // Clean up existing data
-        dayEntries.removeAllElements();
-
-        // Determine minimum entry count for
-        // shortest/longest period calculation
-        result = db.rawQuery(format(Locale.ENGLISH, "select count(*) from data where eventtype = %d", DayEntry.PERIOD_START), null);
-        if (result.moveToNext()) {
-            countlimit = result.getInt(0);
-            countlimit -= 13;
-            if (countlimit < 1) countlimit = 1;
-        }
-        result.close();
-
-        // Get all period related entries from the database to fill the calendar
-        result = db.rawQuery(
-                format(Locale.ENGLISH,
-                        "select eventdate, eventtype, intensity from data " +
-                                "where " +
-                                "eventtype in(%d, %d) order by eventdate",
-                        DayEntry.PERIOD_START, DayEntry.PERIOD_CONFIRMED),
-                null);
-        while (result.moveToNext()) {
-            String dbdate = result.getString(0);
-            int eventtype = result.getInt(1);
-            int intensity = result.getInt(2);
-            int eventyear = Integer.parseInt(dbdate.substring(0, 4), 10);
-            int eventmonth = Integer.parseInt(dbdate.substring(4, 6), 10);
-            int eventday = Integer.parseInt(dbdate.substring(6, 8), 10);
-            GregorianCalendar eventdate = new GregorianCalendar(eventyear,
-                    eventmonth - 1, eventday);
-
-            // Make sure, we only use the entry if we don't already have it
-            // also see https://github.com/arnowelzel/periodical/issues/97
-            if (dbdateCurrent.equals(dbdate)) {
-                continue;
-            }
-            dbdateCurrent = dbdate;
-
-            switch (eventtype) {
-                case DayEntry.PERIOD_START:
-                    this.cycleCount++;
-
-                    if (isFirst) {
-                        // First event at all - just create an initial start entry
-                        dayofcycle = 1;
-                        entryPrevious = new DayEntry(eventtype, eventdate, 1, intensity);
-                        entryPreviousStart = entryPrevious;
-                        this.dayEntries.add(entryPrevious);
-                        isFirst = false;
-                    } else {
-                        // Create new day entry
-                        entry = new DayEntry(eventtype, eventdate, 1, intensity);
-                        int length = entryPreviousStart.date.diffDayPeriods(entry.date);
-
-                        // Add calculated values from the last date to this day, if the period has not
-                        // unusual lengths (e.g. after a longer pause because of pregnancy etc.)
-                        if (length <= maximumcyclelength) {
-                            count++;
-
-                            // Update values which are used to calculate the fertility
-                            // window for the last 12 entries
-                            if (count == countlimit) {
-                                // If we have at least one period the shortest and
-                                // and longest value is automatically the current length
-                                this.cycleShortest = length;
-                                this.cycleLongest = length;
-                            } else if (count > countlimit) {
-                                // We have more than two values, then update
-                                // longest/shortest
-                                // values
-                                if (length < this.cycleShortest)
-                                    this.cycleShortest = length;
-                                if (length > this.cycleLongest)
-                                    this.cycleLongest = length;
-                            }
-
-                            // Update average sum
-                            this.cycleAverage += length;
-
-                            // Calculate a predicted ovulation date
-                            int average = this.cycleAverage;
-                            if (count > 0) average /= count;
-                            ovulationday = length - luteallength;
-
-                            // Calculate days from the last event until now
-                            GregorianCalendar datePrevious = new GregorianCalendar();
-                            datePrevious.setTime(entryPrevious.date.getTime());
-                            for (int day = dayofcycle; day < length; day++) {
-                                datePrevious.add(GregorianCalendar.DATE, 1);
-                                dayofcycle++;
-
-                                int type;
-
-                                if (dayofcycle == ovulationday) {
-                                    // Day of ovulation
-                                    type = DayEntry.OVULATION_PREDICTED;
-                                } else if (dayofcycle >= this.cycleShortest - luteallength - 4
-                                        && dayofcycle <= this.cycleLongest - luteallength + 3) {
-                                    // Fertile days
-                                    type = DayEntry.FERTILITY_PREDICTED;
-                                } else {
-                                    // Infertile days
-                                    type = DayEntry.INFERTILE_PREDICTED;
-                                }
-
-                                // Standard days Method
-                                /*
-                                if (dayofcycle >= 8 && dayofcycle <= 19) {
-                                    if(type != DayEntry.FERTILITY_PREDICTED && type != DayEntry.OVULATION_PREDICTED) {
-                                        type = DayEntry.FERTILITY_STANDARD_PREDICTED;
-                                    }
-                                }
-                                */
-
-                                DayEntry entryCalculated = new DayEntry(type, datePrevious, dayofcycle, 1);
-                                dayEntries.add(entryCalculated);
-                            }
-                        }
+        int eventdayAfter = calculator.calculate(periodSource,
+                preferences.getInt("period_length", DEFAULT_PERIOD_LENGTH),
+                preferences.getInt("luteal_length", DEFAULT_LUTEAL_LENGTH),
+                preferences.getInt("maximum_cycle_length", DEFAULT_CYCLE_LENGTH));
+        publishCalculatedData(eventdayAfter);
+    }
 
-                        // Finally add the entry
-                        dayofcycle = 1;
-                        entryPrevious = entry;
-                        entryPreviousStart = entry;
-                        this.dayEntries.add(entry);
-                    }
-                    break;
+    /**
+     * Update the calculation after the entries of a specific day were changed
+     *
+     * <br><br><i>Only the cycles starting with the last period before the changed day and the
+     * predictions are calculated again.</i>
+     *
+     * @param date Date of the changed entry
+     */
+    synchronized void updateCalculatedData(GregorianCalendar date) {
+        PreferenceUtils preferences = new PreferenceUtils(context);
+        int eventdayAfter = calculator.update(periodSource, DayStore.epochDay(date),
+                preferences.getInt("period_length", DEFAULT_PERIOD_LENGTH),
+                preferences.getInt("luteal_length", DEFAULT_LUTEAL_LENGTH),
+                preferences.getInt("maximum_cycle_length", DEFAULT_CYCLE_LENGTH));
+        publishCalculatedData(eventdayAfter);
+    }
 
-                case DayEntry.PERIOD_CONFIRMED:
-                    dayofcycle++;
-                    entry = new DayEntry(eventtype, eventdate, dayofcycle, intensity);
-                    this.dayEntries.add(entry);
-                    entryPrevious = entry;
-                    break;
+    /**
+     * Period days in the database as source for the calculation
+     */
+    private final CycleCalculator.PeriodSource periodSource = new CycleCalculator.PeriodSource() {
+        @Override
+        public CycleCalculator.PeriodDays load(int eventdayAfter) {
+            CycleCalculator.PeriodDays days = new CycleCalculator.PeriodDays();
+            Cursor result = db.rawQuery(
+                    "select eventday, eventtype, intensity from data " +
+                            "where eventtype in(?, ?) and eventday > ? order by eventday",
+                    new String[]{
+                            Integer.toString(DayEntry.PERIOD_START),
+                            Integer.toString(DayEntry.PERIOD_CONFIRMED),
+                            Integer.toString(eventdayAfter)});
+            while (result.moveToNext()) {
+                days.add(result.getInt(0), result.getInt(1), result.getInt(2));
             }
-        }
-        result.close();
-
-        // Calculate global average and prediction if possible
-        if (count > 0) {
-            this.cycleAverage /= count;
-
-            GregorianCalendar datePredicted = new GregorianCalendar();
-            datePredicted.setTime(entry.date.getTime());
-
-            dayofcycle++;
-            for (int cycles = 0; cycles < 3; cycles++) {
-                for (int day = (cycles == 0 ? dayofcycle : 1); day <= cycleAverage; day++) {
-                    datePredicted.add(GregorianCalendar.DATE, 1);
-
-                    int type;
-
-                    // Ogino Method
-                    if (day <= periodlength) {
-                        // Predicted days of period
-                        type = DayEntry.PERIOD_PREDICTED;
-                    } else if (day == ovulationday) {
-                        // Day of ovulation
-                        type = DayEntry.OVULATION_FUTURE;
-                    } else if (day >= this.cycleShortest - luteallength - 4
-                            && day <= this.cycleLongest - luteallength + 3) {
-                        // Fertile days
-                        type = DayEntry.FERTILITY_FUTURE;
-                    } else {
-                        // Infertile days
-                        type = DayEntry.INFERTILE_FUTURE;
-                    }
-
-                    // Standard days Method
-                    /*
-                    if (day >= 8 && day <= 19) {
-                        if(type != DayEntry.FERTILITY_FUTURE && type != DayEntry.OVULATION_FUTURE) {
-                            type = DayEntry.FERTILITY_STANDARD_FUTURE;
-                        }
-                    }
-                    */
-
-                    DayEntry entryCalculated = new DayEntry(type, datePredicted, dayofcycle, 1);
-                    dayEntries.add(entryCalculated);
+            result.close();
 
-                    dayofcycle++;
-                }
-                dayofcycle = 1;
-            }
+            return days;
         }
+    };
 
+    /**
+     * Add the details to the calculated entries and publish the result for the UI
+     *
+     * @param eventdayAfter Day after which entries were calculated
+     */
+    private void publishCalculatedData(int eventdayAfter) {
         // Fill details for each day
-        fillDetailsFromResult("select eventdate, symptom from symptoms order by eventdate", false);
-        fillDetailsFromResult("select eventdate, content from notes order by eventdate", true);
+        fillDetailsFromResult("select eventday, symptoms from data where symptoms <> 0 and eventday > ? order by eventday", eventdayAfter, false);
+        fillDetailsFromResult("select eventday, content from notes where eventday > ? order by eventday", eventdayAfter, true);
 
-        System.gc();
+        snapshot = new CalculationSnapshot(snapshot.version + 1, eventdayAfter,
+                calculator.getDays().copy(), calculator.getPrediction(),
+                calculator.cycleCount, calculator.cycleAverage, calculator.cycleLongest,
+                calculator.cycleShortest);
     }
 
     /**
-     * Fill entry list with details
+     * Fill entries with details
      *
      * @param query Query to get details
+     * @param eventdayAfter Only use details after this day
      * @param isNotes Query is for notes or symptoms
      */
-    void fillDetailsFromResult(String query, boolean isNotes)
+    private void fillDetailsFromResult(String query, int eventdayAfter, boolean isNotes)
     {
-        Cursor result = db.rawQuery(query, null);
-        int index = 0;
-        DayEntry entryTarget = null;
+        Cursor result = db.rawQuery(query, new String[]{Integer.toString(eventdayAfter)});
         while (result.moveToNext()) {
-            String dbdate = result.getString(0);
-            assert dbdate != null;
-            int eventyear = Integer.parseInt(dbdate.substring(0, 4), 10);
-            int eventmonth = Integer.parseInt(dbdate.substring(4, 6), 10);
-            int eventday = Integer.parseInt(dbdate.substring(6, 8), 10);
-            GregorianCalendar eventdate = new GregorianCalendar(eventyear, eventmonth - 1, eventday);
-
-            String notes = "";
-            int symptom = 0;
+            int eventday = result.getInt(0);
+
+            // Add details to the day, an empty entry is created if there is none yet
             if (isNotes) {
-                notes = result.getString(1);
-                if (notes == null) notes = "";
+                calculator.getDays().putNotes(eventday, result.getString(1));
             } else {
-                symptom = result.getInt(1);
+                calculator.getDays().putSymptoms(eventday, result.getInt(1));
             }
+        }
+        result.close();
+    }
 
-            if (dayEntries.isEmpty()) {
-                // If we don't have any entries yet, create an empty entry for the details
-                entryTarget = new DayEntry(DayEntry.EMPTY, eventdate, 0, 0);
-                dayEntries.add(entryTarget);
-                index = 0;
-            } else {
-                // We have at least ony entry, but it may be in the future
-                if (dayEntries.size() > index) {
-                    DayEntry entry = dayEntries.get(index);
-                    if (entry.date.getTimeInMillis() > eventdate.getTimeInMillis()) {
-                        // The existing entry is in the future, so create a new blank entry before
-                        // this day to hold the details
-                        entryTarget = new DayEntry(DayEntry.EMPTY, eventdate, 0, 0);
-                        dayEntries.insertElementAt(entryTarget, index);
-                    } else {
-                        // Skip existing entries, until a matching one is found
-                        do {
-                            entry = dayEntries.get(index);
-                            index++;
-                        } while (entry.date.getTimeInMillis() < eventdate.getTimeInMillis() && index < dayEntries.size());
-                        index--;
-                        if (entry.date.equals(eventdate)) {
-                            entryTarget = entry;
-                        } else {
-                            // No matching entry found, so add a new one for this day
-                            entryTarget = new DayEntry(DayEntry.EMPTY, eventdate, 0, 0);
-                            dayEntries.add(entryTarget);
-                        }
-                    }
-                }
 
-                // Add symptom to the current entry
-                if (isNotes) {
-                    entryTarget.notes = notes;
-                } else {
-                    if (symptom != 0) {
-                        entryTarget.symptoms.add(symptom);
-                    }
-                }
-            }
+    /**
+     * Get the statistics of all cycles without calculating anything
+     *
+     * <br><br><i>All period days are read once in the order of their dates and passed
+     * to the statistics, so this does not depend on the calculated data.</i>
+     *
+     * @return The statistics
+     */
+    synchronized CycleStatistics getStatistics() {
+        PreferenceUtils preferences = new PreferenceUtils(context);
+        CycleStatistics statistics = new CycleStatistics(
+                preferences.getInt("maximum_cycle_length", DEFAULT_CYCLE_LENGTH));
+
+        Cursor result = db.rawQuery(
+                "select eventday, eventtype from data where eventtype in(?, ?) order by eventday",
+                new String[]{
+                        Integer.toString(DayEntry.PERIOD_START),
+                        Integer.toString(DayEntry.PERIOD_CONFIRMED)});
+        while (result.moveToNext()) {
+            statistics.add(result.getInt(0), result.getInt(1));
         }
         result.close();
-    }
+        statistics.finish();
 
+        return statistics;
+    }
 
     /**
      * Load data for statistics and overview without calculating anything.
+     *
+     * <br><br><i>The calculated data is not changed by this.</i>
+     *
+     * @return Period starts, beginning with the latest
      */
-    void loadRawData() {
+    synchronized List<DayEntry> loadRawData() {
         DayEntry entry;
-        String dbdateCurrent = "";
-
-        // Clean up existing data
-        dayEntries.removeAllElements();
+        List<DayEntry> dayEntries = new ArrayList<>();
 
         // Get all entries from the database
-        String statement = "select eventtype, eventdate from data where eventtype=" +
+        String statement = "select eventtype, eventday from data where eventtype=" +
                 String.format(Locale.ENGLISH, "%d", DayEntry.PERIOD_START) +
-                " order by eventdate desc";
+                " order by eventday desc";
         Cursor result = db.rawQuery(statement, null);
         while (result.moveToNext()) {
-            String dbdate = result.getString(1);
-            assert dbdate != null;
-            int eventyear = Integer.parseInt(dbdate.substring(0, 4), 10);
-            int eventmonth = Integer.parseInt(dbdate.substring(4, 6), 10);
-            int eventday = Integer.parseInt(dbdate.substring(6, 8), 10);
-            GregorianCalendar eventdate = new GregorianCalendar(eventyear,
-                    eventmonth - 1, eventday);
-
-            // Make sure, we only use the entry if we don't already have it
-            // also see https://github.com/arnowelzel/periodical/issues/97
-            if (dbdateCurrent.equals(dbdate)) {
-                continue;
-            }
-            dbdateCurrent = dbdate;
+            int eventday = result.getInt(1);
 
             // Create new day entry
-            entry = new DayEntry(DayEntry.PERIOD_START, eventdate, 1, 0);
+            entry = new DayEntry(DayEntry.PERIOD_START, eventday, 1, 0);
             dayEntries.add(entry);
         }
         result.close();
 
-        System.gc();
+        return dayEntries;
     }
 
     /**
      * Load data and details without calculating anything.
+     *
+     * <br><br><i>The calculated data is not changed by this.</i>
+     *
+     * @return All days with data or details in the order of their dates
      */
     @SuppressLint("DefaultLocale")
-    void loadRawDataWithDetails() {
-        // Clean up existing data
-        dayEntries.removeAllElements();
+    synchronized List<DayEntry> loadRawDataWithDetails() {
+        List<DayEntry> dayEntries = new ArrayList<>();
 
         // Get all entries with details from the database
-        String statement = "select data.eventdate, eventtype, intensity, content, symptom from " +
+        String statement = "select data.eventday, eventtype, intensity, content, symptoms from " +
                 "data " +
-                "left outer join notes on data.eventdate=notes.eventdate " +
-                "left outer join symptoms on data.eventdate=symptoms.eventdate " +
-                "order by data.eventdate";
+                "left outer join notes on data.eventday=notes.eventday " +
+                "order by data.eventday";
         Cursor result = db.rawQuery(statement, null);
-        DayEntry entry = null;
-        String dbdate = "";
-        List<Integer> symptoms = new ArrayList<>();
         int dayofcycle = 1;
 
         while (result.moveToNext()) {
-            // New day?
-            if (!dbdate.equals(result.getString(0))) {
-                // Store pending entry if it is not a total empty day
-                if (entry != null) {
-                    entry.dayofcycle = dayofcycle;
-                    entry.symptoms = symptoms;
-                    if (entry.type != DayEntry.EMPTY || !entry.notes.isEmpty() || !entry.symptoms.isEmpty()) {
-                        dayEntries.add(entry);
-                    }
-                }
-
-                dbdate = result.getString(0);
-                assert dbdate != null;
-                int eventtype = result.getInt(1);
-                int eventyear = Integer.parseInt(dbdate.substring(0, 4), 10);
-                int eventmonth = Integer.parseInt(dbdate.substring(4, 6), 10);
-                int eventday = Integer.parseInt(dbdate.substring(6, 8), 10);
-                GregorianCalendar eventdate = new GregorianCalendar(eventyear, eventmonth - 1, eventday);
-                int intensity = result.getInt(2);
-                String notes = result.getString(3);
-                if (notes == null) notes = "";
-
-                entry = new DayEntry();
-                entry.type = eventtype;
-                entry.date.setTime(eventdate.getTime());
-                entry.intensity = intensity > 0 ? intensity : 1;
-                entry.notes = notes;
-
-                symptoms = new ArrayList<>();
-
-                if (result.getInt(4) != 0) {
-                    symptoms.add(result.getInt(4));
-                }
+            int eventday = result.getInt(0);
+            int eventtype = result.getInt(1);
+            int intensity = result.getInt(2);
+            String notes = result.getString(3);
+            if (notes == null) notes = "";
 
-                if (eventtype == DayEntry.PERIOD_START) dayofcycle = 1;
-                else dayofcycle++;
-            } else {
-                symptoms.add(result.getInt(4));
-            }
-        }
-        result.close();
+            DayEntry entry = new DayEntry(eventday);
+            entry.type = eventtype;
+            entry.intensity = intensity > 0 ? intensity : 1;
+            entry.notes = notes;
+            entry.symptoms = result.getInt(4);
 
-        if (entry != null) {
-            entry.symptoms = symptoms;
+            if (eventtype == DayEntry.PERIOD_START) dayofcycle = 1;
+            else dayofcycle++;
             entry.dayofcycle = dayofcycle;
-            if (entry.type != DayEntry.EMPTY || !entry.notes.isEmpty() || !entry.symptoms.isEmpty()) {
+
+            // Only store the entry if it is not a total empty day
+            if (entry.type != DayEntry.EMPTY || !entry.notes.isEmpty() || entry.symptoms != 0) {
                 dayEntries.add(entry);
             }
         }
+        result.close();
 
-        // System.gc();
+        return dayEntries;
     }
 
     /**
-     * Get entry type for a specific day
+     * Get a specific day including all details
      *
-     * @param date Date of the entry
-     */
-    @SuppressWarnings("WrongConstant")
-    int getEntryType(GregorianCalendar date) {
-        for (DayEntry entry : dayEntries) {
-            // If entry was found, then return type
-            if (entry.date.equals(date)) {
-                return entry.type;
-            }
-        }
-
-        // Fall back if month was not found, then return "empty" as type
-        return 0;
-    }
-
-    /**
-     * Get entry for a specific day
+     * <br><br><i>Only the stored data of this day is used, so this does not need any
+     * calculation. Predicted entry types are not available this way.</i>
      *
      * @param year  Year including century
      * @param month Month (1-12)
      * @param day   Day of the month (1-31)
      */
-    @SuppressWarnings("WrongConstant")
-    private DayEntry getEntry(int year, int month, int day) {
-        for (DayEntry entry : dayEntries) {
-            // If entry was found, then return entry
-            //noinspection MagicConstant
-            if (entry.date.get(GregorianCalendar.YEAR) == year
-                    && entry.date.get(GregorianCalendar.MONTH) == month - 1
-                    && entry.date.get(GregorianCalendar.DATE) == day) {
-                return entry;
-            }
+    synchronized DayEntry getEntryWithDetails(int year, int month, int day) {
+        int eventday = DayStore.epochDay(year, month, day);
+        DayEntry entry = new DayEntry(eventday);
+
+        // Get data, notes and symptoms of this day at once
+        Cursor result = db.rawQuery(
+                "select eventtype, intensity, content, symptoms from data " +
+                        "left outer join notes on data.eventday=notes.eventday " +
+                        "where data.eventday = ?",
+                new String[]{Integer.toString(eventday)});
+        if (result.moveToNext()) {
+            int intensity = result.getInt(1);
+            String notes = result.getString(2);
+
+            entry.type = result.getInt(0);
+            entry.intensity = intensity > 0 ? intensity : 1;
+            entry.notes = notes == null ? "" : notes;
+            entry.symptoms = result.getInt(3);
+        }
+        result.close();
+
+        // Day of cycle based on the last period start before this day
+        int cycleStart = getCycleStart(eventday);
+        if (cycleStart != Integer.MIN_VALUE) {
+            entry.dayofcycle = eventday - cycleStart + 1;
         }
 
-        // No entry was found
-        return null;
+        return entry;
     }
 
     /**
-     * Get entry for a specific day
+     * Get the start of the cycle a specific day belongs to
      *
-     * @param date Date of the entry
+     * <br><br><i>The boundaries of the cycle found last are cached, so further lookups
+     * for days of the same cycle do not need any query.</i>
+     *
+     * @param eventday Day as number of days since 1970-01-01
+     * @return The day of the period start or Integer.MIN_VALUE if there is none before
      */
-    DayEntry getEntry(GregorianCalendar date) {
-        for (DayEntry entry : dayEntries) {
-            // If entry was found, then return entry
-            if (entry.date.equals(date)) {
-                return entry;
+    private int getCycleStart(int eventday) {
+        if (!cycleCacheValid || eventday < cycleCacheStart || eventday >= cycleCacheEnd) {
+            cycleCacheStart = Integer.MIN_VALUE;
+            cycleCacheEnd = Integer.MAX_VALUE;
+
+            String[] args = new String[]{
+                    Integer.toString(DayEntry.PERIOD_START),
+                    Integer.toString(eventday)};
+            Cursor result = db.rawQuery(
+                    "select eventday from data where eventtype = ? and eventday <= ? " +
+                            "order by eventday desc limit 1",
+                    args);
+            if (result.moveToNext()) {
+                cycleCacheStart = result.getInt(0);
             }
+            result.close();
+
+            result = db.rawQuery(
+                    "select eventday from data where eventtype = ? and eventday > ? " +
+                            "order by eventday limit 1",
+                    args);
+            if (result.moveToNext()) {
+                cycleCacheEnd = result.getInt(0);
+            }
+            result.close();
+
+            cycleCacheValid = true;
         }
 
-        // No entry was found
-        return null;
+        return cycleCacheStart;
     }
 
     /**
-     * Get a specific day including all details
+     * Store details for a specific day
      *
-     * @param year  Year including century
-     * @param month Month (1-12)
-     * @param day   Day of the month (1-31)
+     * @param entry The details to be stored
      */
-    DayEntry getEntryWithDetails(int year, int month, int day) {
-        DayEntry entry = getEntry(year, month, day);
-
-        if (entry == null) {
-            entry = new DayEntry();
-
-            // Set chosen date
-            GregorianCalendar date = new GregorianCalendar(year, month - 1, day);
-            entry.date.setTime(date.getTime());
-        }
-
-        String statementNotes = format(
-                Locale.ENGLISH,
-                "select content from notes where eventdate = '%04d%02d%02d'",
-                year, month, day);
-        Cursor resultNotes = db.rawQuery(statementNotes, null);
-
-        if (resultNotes.moveToNext()) {
-            entry.notes = resultNotes.getString(0);
-        }
-        resultNotes.close();
-
-        String statementSymptoms = format(
-                Locale.ENGLISH,
-                "select symptom from symptoms where eventdate = '%04d%02d%02d'",
-                year, month, day);
-        Cursor resultSymptoms = db.rawQuery(statementSymptoms, null);
+    synchronized void addEntryDetails(DayEntry entry) {
+        db.beginTransaction();
+        storeEntryDetails(entry);
+        db.setTransactionSuccessful();
+        db.endTransaction();
+    }
 
-        List<Integer> symptoms = new ArrayList<>();
-        while (resultSymptoms.moveToNext()) {
-            symptoms.add(resultSymptoms.getInt(0));
+    /**
+     * Store details for multiple days in one transaction
+     *
+     * @param entries The details to be stored
+     */
+    synchronized void addEntryDetails(List<DayEntry> entries) {
+        db.beginTransaction();
+        for (DayEntry entry : entries) {
+            storeEntryDetails(entry);
         }
-        entry.symptoms = symptoms;
-
-        resultSymptoms.close();
-
-        return entry;
+        db.setTransactionSuccessful();
+        db.endTransaction();
     }
 
     /**
-     * Store details for a specific day
+     * Store details for a specific day within the current transaction
      *
      * @param entry The details to be stored
      */
-    @SuppressLint("DefaultLocale")
-    void addEntryDetails(DayEntry entry) {
-        String statement;
-        String dateString = format(Locale.ENGLISH, "%04d%02d%02d",
-                entry.date.get(GregorianCalendar.YEAR),
-                entry.date.get(GregorianCalendar.MONTH) + 1,
-                entry.date.get(GregorianCalendar.DAY_OF_MONTH));
-
-        db.beginTransaction();
+    private void storeEntryDetails(DayEntry entry) {
+        SQLiteStatement statement;
+        int eventday = entry.eventday;
 
         // Delete existing details, if any
-        statement = format(
-                Locale.ENGLISH,
-                "delete from notes where eventdate = '%s'",
-                dateString);
-        db.execSQL(statement);
-
-        statement = format(
-                Locale.ENGLISH,
-                "delete from symptoms where eventdate = '%s'",
-                dateString);
-        db.execSQL(statement);
+        statement = getStatement(SQL_DELETE_NOTES);
+        statement.bindLong(1, eventday);
+        statement.executeUpdateDelete();
 
         // If there is nothing to store, remove existing entry
         if (entry.type != DayEntry.PERIOD_START && entry.type != DayEntry.PERIOD_CONFIRMED
-            && entry.notes.isEmpty() && entry.symptoms.isEmpty()) {
-            statement = format(
-                    Locale.ENGLISH,
-                    "delete from data where eventdate = '%s'",
-                    dateString);
-            db.execSQL(statement);
+            && entry.notes.isEmpty() && entry.symptoms == 0) {
+            statement = getStatement(SQL_DELETE_DATA);
+            statement.bindLong(1, eventday);
+            statement.executeUpdateDelete();
         } else {
             // If there is no calendar entry for this day yet, then add one first
-            boolean addNew = false;
-            statement = format(
-                    Locale.ENGLISH,
-                    "select eventtype from data where eventdate='%s'",
-                    dateString);
-            Cursor result = db.rawQuery(statement, null);
-            if (!result.moveToNext()) addNew = true;
-            result.close();
-            if (addNew) {
-                statement = format(
-                        Locale.ENGLISH,
-                        "insert into data (eventdate, eventtype) values ('%s', %d)",
-                        dateString,
-                        DayEntry.EMPTY);
-                db.execSQL(statement);
-            }
+            statement = getStatement(SQL_INSERT_DATA_IF_MISSING);
+            statement.bindLong(1, eventday);
+            statement.bindLong(2, DayEntry.EMPTY);
+            statement.bindNull(3);
+            statement.executeInsert();
 
             // Store new details
             if (entry.type == DayEntry.PERIOD_START || entry.type == DayEntry.PERIOD_CONFIRMED) {
-                statement = format(
-                        Locale.ENGLISH,
-                        "update data set intensity = %d where eventdate='%s'",
-                        entry.intensity,
-                        dateString);
-                db.execSQL(statement);
+                statement = getStatement(SQL_UPDATE_DATA_INTENSITY);
+                statement.bindLong(1, entry.intensity);
+                statement.bindLong(2, eventday);
+                statement.executeUpdateDelete();
             }
 
             if (!entry.notes.isEmpty()) {
-                statement = format(
-                        Locale.ENGLISH,
-                        "insert into notes (eventdate, content) values ('%s', ?)",
-                        dateString);
-                db.execSQL(statement, new String[]{entry.notes});
+                statement = getStatement(SQL_INSERT_NOTES);
+                statement.bindLong(1, eventday);
+                statement.bindString(2, entry.notes);
+                statement.executeInsert();
             }
 
-            int count = 0;
-            while (count < entry.symptoms.size()) {
-                statement = format(
-                        Locale.ENGLISH,
-                        "insert into symptoms (eventdate, symptom) values ('%s', %d)",
-                        dateString,
-                        entry.symptoms.get(count));
-                db.execSQL(statement);
-                count++;
-            }
+            statement = getStatement(SQL_UPDATE_DATA_SYMPTOMS);
+            statement.bindLong(1, entry.symptoms);
+            statement.bindLong(2, eventday);
+            statement.executeUpdateDelete();
         }
-
-        db.setTransactionSuccessful();
-        db.endTransaction();
     }
 
     /**
@@ -1245,57 +1320,36 @@ class PeriodicalDatabase {
      * @param name  Name of the option to store
      * @param value Value of the option to store
      */
-    public void setOption(String name, String value) {
-        String statement;
+    public synchronized void setOption(String name, String value) {
+        SQLiteStatement statement;
 
         db.beginTransaction();
 
         // Delete existing value
-        statement = "delete from options where name = ?";
-        db.execSQL(statement, new String[]{name});
+        statement = getStatement(SQL_DELETE_OPTION);
+        statement.bindString(1, name);
+        statement.executeUpdateDelete();
 
         // Save option
-        statement = "insert into options (name, value) values (?, ?)";
-        db.execSQL(statement, new String[]{name, value});
+        statement = getStatement(SQL_INSERT_OPTION);
+        statement.bindString(1, name);
+        if (value == null) {
+            statement.bindNull(2);
+        } else {
+            statement.bindString(2, value);
+        }
+        statement.executeInsert();
 
         db.setTransactionSuccessful();
         db.endTransaction();
     }
 
     public void setOption(String name, Integer value) {
-        String statement;
-        String valueStr;
-
-        db.beginTransaction();
-
-        // Delete existing value
-        statement = "delete from options where name = ?";
-        db.execSQL(statement, new String[]{name});
-
-        // Save option
-        valueStr = value.toString();
-        statement = "insert into options (name, value) values (?, ?)";
-        db.execSQL(statement, new String[]{name, valueStr});
-
-        db.setTransactionSuccessful();
-        db.endTransaction();
+        setOption(name, value.toString());
     }
 
     public void setOption(String name, boolean value) {
-        String statement;
-
-        db.beginTransaction();
-
-        // Delete existing value
-        statement = "delete from options where name = ?";
-        db.execSQL(statement, new String[]{name});
-
-        // Save option
-        statement = "insert into options (name, value) values (?, ?)";
-        db.execSQL(statement, new String[]{name, value ? "1" : "0"});
-
-        db.setTransactionSuccessful();
-        db.endTransaction();
+        setOption(name, value ? "1" : "0");
     }
 
     /**
@@ -1303,7 +1357,7 @@ class PeriodicalDatabase {
      *
      * <br><br><i>(Just a hack for now - in the future we might want to get rid of shared preferences)</i>
      */
-    void restorePreferences() {
+    synchronized void restorePreferences() {
         int period_length = getOption("period_length", DEFAULT_PERIOD_LENGTH);
         int luteal_length = getOption("luteal_length", DEFAULT_LUTEAL_LENGTH);
         int startofweek = getOption("startofweek", DEFAULT_START_OF_WEEK);
@@ -1342,7 +1396,7 @@ class PeriodicalDatabase {
     /**
      * Backup database to a given URI
      */
-    boolean backupToUri(Context context, Uri uri) {
+    synchronized boolean backupToUri(Context context, Uri uri) {
         boolean result = false;
 
         // Check if uri is accessible
@@ -1405,10 +1459,13 @@ class PeriodicalDatabase {
      *
      * @noinspection ReassignedVariable
      */
-    boolean restoreFromUri(Context context, Uri uri) {
+    synchronized boolean restoreFromUri(Context context, Uri uri) {
         boolean result = false;
         DocumentFile sourceFileBackup = null;
 
+        // All data may change
+        cycleCacheValid = false;
+
         // Check if uri exists
         DocumentFile directory = DocumentFile.fromTreeUri(context, uri);
         assert directory != null;
@@ -1428,6 +1485,7 @@ class PeriodicalDatabase {
             DocumentFile sourceFile = sourceDirectory.findFile(destinationFileName);
             if (null != sourceFile) {
                 // Close the database
+                closeStatements();
                 db.close();
 
                 // Restore database file
@@ -1518,12 +1576,12 @@ class PeriodicalDatabase {
     private void writeBackup(final JsonWriter writer, final SQLiteDatabase db) throws IOException {
         writer.beginArray();
         writer.beginObject();
-        writer.name("version").value(PeriodicalDataOpenHelper.DATABASE_VERSION);
+        writer.name("version").value(PeriodicalDataOpenHelper.BACKUP_VERSION);
         writer.endObject();
         writeTable(writer, db, "data", new String[]{"eventtype", "eventdate", "eventcvx", "eventtemp", "intensity"});
         writeTable(writer, db, "options", new String[]{"name", "value"});
         writeTable(writer, db, "notes", new String[]{"eventdate", "content"});
-        writeTable(writer, db, "symptoms", new String[]{"eventdate", "symptom"});
+        writeSymptoms(writer, db);
         writer.endArray();
     }
 
@@ -1562,6 +1620,40 @@ class PeriodicalDatabase {
         writer.endObject();
     }
 
+    /**
+     * Helper to write the symptoms to the backup
+     *
+     * <br><br><i>The backup contains one record per symptom as in the symptoms table of
+     * older versions, so the backup format does not depend on how symptoms are stored</i>
+     *
+     * @param writer Write to use for the output
+     * @param db Database to be backed up
+     */
+    private void writeSymptoms(final JsonWriter writer, final SQLiteDatabase db) throws IOException {
+        writer.beginObject();
+        writer.name("symptoms");
+        writer.beginArray();
+        Cursor cursor = db.rawQuery("select eventdate, symptoms from data where symptoms <> 0 order by eventday", null);
+        try {
+            while (cursor.moveToNext()) {
+                String eventdate = cursor.getString(0);
+                int symptoms = cursor.getInt(1);
+                for (int symptom = 1; symptom <= DayEntry.SYMPTOM_MAX; symptom++) {
+                    if ((symptoms & (1 << symptom)) != 0) {
+                        writer.beginObject();
+                        writer.name("eventdate").value(eventdate);
+                        writer.name("symptom").value(Integer.toString(symptom));
+                        writer.endObject();
+                    }
+                }
+            }
+        } finally {
+            cursor.close();
+        }
+        writer.endArray();
+        writer.endObject();
+    }
+
     /**
      * Helper to read database from the backup
      *
@@ -1573,7 +1665,7 @@ class PeriodicalDatabase {
         reader.beginObject();
         reader.nextName();
         int version = reader.nextInt();
-        if (version != 6) {
+        if (version != PeriodicalDataOpenHelper.BACKUP_VERSION) {
             throw new IOException("Version of this backup is not supported");
         }
         reader.endObject();
@@ -1591,7 +1683,7 @@ class PeriodicalDatabase {
                     readTable(reader, version, db, "notes", new String[]{"eventdate", "content"});
                     break;
                 case "symptoms":
-                    readTable(reader, version, db, "symptoms", new String[]{"eventdate", "symptom"});
+                    readSymptoms(reader, db);
                     break;
             }
             reader.endObject();
@@ -1599,6 +1691,66 @@ class PeriodicalDatabase {
         reader.endArray();
     }
 
+    /**
+     * Helper to read the symptoms from the backup
+     *
+     * <br><br><i>Each record of the backup is added to the symptoms of the day, so
+     * the data table must already be restored</i>
+     *
+     * @param reader Reader to be used for the input
+     * @param db Database to be restored
+     */
+    private void readSymptoms(final JsonReader reader, final SQLiteDatabase db) throws IOException {
+        db.beginTransaction();
+        try {
+            reader.beginArray();
+            while (reader.hasNext()) {
+                String eventdate = "";
+                int symptom = 0;
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String jsonFieldName = reader.nextName();
+                    String jsonFieldValue = reader.nextString();
+                    if (jsonFieldName.equals("eventdate")) {
+                        eventdate = jsonFieldValue;
+                    } else if (jsonFieldName.equals("symptom")) {
+                        try {
+                            symptom = Integer.parseInt(jsonFieldValue);
+                        } catch (NumberFormatException e) {
+                            symptom = 0;
+                        }
+                    }
+                }
+                reader.endObject();
+
+                if (eventdate.length() == 8 && symptom >= 1 && symptom <= DayEntry.SYMPTOM_MAX) {
+                    int eventday = epochDayFromEventDate(eventdate);
+                    db.execSQL("insert or ignore into data (eventdate, eventday, eventtype, intensity) values (?, ?, ?, 0)",
+                            new Object[]{eventdate, eventday, DayEntry.EMPTY});
+                    db.execSQL("update data set symptoms = symptoms | ? where eventday = ?",
+                            new Object[]{1 << symptom, eventday});
+                }
+            }
+            reader.endArray();
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Helper to convert a date string as used in the "eventdate" columns to an epoch day
+     *
+     * @param eventdate Date as YYYYMMDD
+     * @return The epoch day
+     */
+    private static int epochDayFromEventDate(String eventdate) {
+        return DayStore.epochDay(
+                Integer.parseInt(eventdate.substring(0, 4), 10),
+                Integer.parseInt(eventdate.substring(4, 6), 10),
+                Integer.parseInt(eventdate.substring(6, 8), 10));
+    }
+
     /**
      * Helper to read a table from the backup
      *
@@ -1616,6 +1768,8 @@ class PeriodicalDatabase {
                 StringBuilder statementPlaceholders = new StringBuilder();
                 //noinspection rawtypes
                 ArrayList statementValues = new ArrayList();
+                String eventtype = "";
+                Integer eventday = null;
                 for (String field : fieldList) {
                     String jsonFieldName = reader.nextName();
                     String jsonFieldValue = reader.nextString();
@@ -1632,9 +1786,30 @@ class PeriodicalDatabase {
 
                     //noinspection unchecked
                     statementValues.add(jsonFieldValue);
+
+                    if (jsonFieldName.equals("eventtype")) {
+                        eventtype = jsonFieldValue;
+                    }
+
+                    // The epoch day is not part of the backup, so calculate it from the date string
+                    if (jsonFieldName.equals("eventdate") && jsonFieldValue.length() == 8) {
+                        eventday = epochDayFromEventDate(jsonFieldValue);
+                        statementFields.append(",eventday");
+                        statementPlaceholders.append(",?");
+                        //noinspection unchecked
+                        statementValues.add(eventday);
+                    }
+                }
+                // Older backups may contain more than one record for a day. As in the
+                // migration to version 8 a placeholder with eventtype 0 is replaced by a
+                // period record, otherwise the first record is kept.
+                if (tableName.equals("data") && eventday != null
+                        && !eventtype.isEmpty() && !eventtype.equals("0")) {
+                    db.execSQL("delete from data where eventday = ? and eventtype = 0",
+                            new Object[]{eventday});
                 }
                 String statement =
-                    "insert into " + tableName
+                    "insert or ignore into " + tableName
                     + " (" + statementFields + ") values ("
                     + statementPlaceholders + ")";
                 db.execSQL(statement, statementValues.toArray());
@@ -42,7 +42,7 @@ public class SettingsFragment extends PreferenceFragmentCompat {
         assert context != null;
 
         // We store preferences in the database
-        dbMain = new PeriodicalDatabase(context);
+        dbMain = AppPeriodical.acquireDatabase(context);
 
         // Build preference entries
         addPreferencesFromResource(R.xml.preferences);
@@ -193,13 +193,24 @@ public class SettingsFragment extends PreferenceFragmentCompat {
         }
 
         String key = preference.getKey();
-        dbMain.setOption(key, value);
+        dbMain.setOptionAsync(key, value);
 
         updatePrefSummaryNew(preference, newValue);
 
         return true;
     }
 
+    /**
+     * Called when the fragment is destroyed
+     */
+    @Override
+    public void onDestroy() {
+        super.onDestroy();
+
+        if (dbMain != null)
+            AppPeriodical.releaseDatabase(requireContext());
+    }
+
     /**
      * Store a numerical setting to the database
      */
@@ -216,7 +227,7 @@ public class SettingsFragment extends PreferenceFragmentCompat {
             }
 
             String key = preference.getKey();
-            dbMain.setOption(key, value);
+            dbMain.setOptionAsync(key, value);
         }
 
         if (newValue instanceof Boolean) {
@@ -225,7 +236,7 @@ public class SettingsFragment extends PreferenceFragmentCompat {
                 value = 1;
             }
             String key = preference.getKey();
-            dbMain.setOption(key, value);
+            dbMain.setOptionAsync(key, value);
         }
 
         updatePrefSummaryNew(preference, newValue);
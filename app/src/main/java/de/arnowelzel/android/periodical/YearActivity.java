@@ -0,0 +1,173 @@
+/*
+ * Periodical year overview activity
+ * Copyright (C) 2012-2025 Arno Welzel
+ *
+ * This code is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.arnowelzel.android.periodical;
+
+import android.content.Context;
+import android.content.Intent;
+import android.os.Bundle;
+import android.view.MenuItem;
+import android.view.View;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.appcompat.app.ActionBar;
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.appcompat.widget.Toolbar;
+
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+
+/**
+ * Activity to handle the "Year overview" command
+ */
+public class YearActivity extends AppCompatActivity {
+    private final String STATE_YEAR = "year";
+
+    /**
+     * Database for calendar data
+     */
+    private PeriodicalDatabase dbMain;
+    /**
+     * Year which is displayed
+     */
+    private int yearCurrent;
+
+    /**
+     * Called when activity starts
+     */
+    @Override
+    public void onCreate(Bundle savedInstanceState) {
+        final Context context = getApplicationContext();
+        assert context != null;
+        super.onCreate(savedInstanceState);
+
+        // Set up view
+        setContentView(R.layout.activity_year);
+
+        YearView yearView = findViewById(R.id.yeargrid);
+        yearView.setOnMonthClickListener(this::showMonth);
+
+        // Set up main toolbar
+        Toolbar toolbar = findViewById(R.id.toolbar);
+        setSupportActionBar(toolbar);
+        ActionBar actionBar = getSupportActionBar();
+        assert actionBar != null;
+        actionBar.setDisplayHomeAsUpEnabled(true);
+
+        // Start with the year of the calling view, if there is no saved state
+        if (savedInstanceState == null) {
+            yearCurrent = getIntent().getIntExtra("year",
+                    new GregorianCalendar().get(Calendar.YEAR));
+        } else {
+            yearCurrent = savedInstanceState.getInt(STATE_YEAR);
+        }
+
+        // Show the last result right away and again when all pending calculations are done
+        dbMain = AppPeriodical.acquireDatabase(context);
+        yearUpdate();
+        dbMain.getCalculatedDataAsync(snapshot -> yearUpdate());
+    }
+
+    /**
+     * Called to save the current instance state
+     *
+     * @param outState Bundle to place the saved state
+     */
+    @Override
+    protected void onSaveInstanceState(@NonNull Bundle outState) {
+        super.onSaveInstanceState(outState);
+
+        outState.putInt(STATE_YEAR, yearCurrent);
+    }
+
+    /**
+     * Called when the activity is destroyed
+     */
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+
+        if (dbMain != null)
+            AppPeriodical.releaseDatabase(this);
+    }
+
+    /**
+     * Handler for ICS "home" button
+     */
+    @Override
+    public boolean onOptionsItemSelected(MenuItem item) {
+        if (item.getItemId() == android.R.id.home) {// Home icon in action bar clicked, then close activity
+            finish();
+            return true;
+        }
+        return super.onOptionsItemSelected(item);
+    }
+
+    /**
+     * Update the year view
+     */
+    @SuppressWarnings("WrongConstant")
+    private void yearUpdate() {
+        if (isDestroyed()) {
+            return;
+        }
+
+        PreferenceUtils preferences = new PreferenceUtils(getApplicationContext());
+        int startOfWeek = preferences.getInt("startofweek", 0);
+
+        // The entry types of the year are only created once per calculation result
+        YearView yearView = findViewById(R.id.yeargrid);
+        yearView.setYear(yearCurrent, dbMain.getSnapshot().getYearIndex(yearCurrent), startOfWeek);
+
+        TextView displayYear = findViewById(R.id.displayyear);
+        displayYear.setText(String.valueOf(yearCurrent));
+    }
+
+    /**
+     * Handler for "previous year" button
+     */
+    @SuppressWarnings({"UnusedParameters", "SameParameterValue"})
+    public void goPrevYear(View v) {
+        yearCurrent--;
+        yearUpdate();
+    }
+
+    /**
+     * Handler for "next year" button
+     */
+    @SuppressWarnings({"UnusedParameters", "SameParameterValue"})
+    public void goNextYear(View v) {
+        yearCurrent++;
+        yearUpdate();
+    }
+
+    /**
+     * Handler for a selected month which will return to the main view
+     *
+     * @param month Month (1-12)
+     */
+    private void showMonth(int month) {
+        Intent intent = getIntent();
+        intent.putExtra("month", Integer.toString(month - 1));
+        intent.putExtra("year", Integer.toString(yearCurrent));
+
+        setResult(RESULT_OK, intent);
+        finish();
+    }
+}
@@ -0,0 +1,433 @@
+/*
+ * Periodical year view class
+ * Copyright (C) 2012-2025 Arno Welzel
+ *
+ * This code is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.arnowelzel.android.periodical;
+
+import android.annotation.SuppressLint;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.os.Bundle;
+import android.util.AttributeSet;
+import android.util.TypedValue;
+import android.view.MotionEvent;
+import android.view.SoundEffectConstants;
+import android.view.View;
+import android.view.accessibility.AccessibilityEvent;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.view.ViewCompat;
+import androidx.core.view.accessibility.AccessibilityNodeInfoCompat;
+import androidx.customview.widget.ExploreByTouchHelper;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Custom view to display all months of a year as a heatmap
+ *
+ * <br><br><i>Every day is a small square in the color of its entry type. The year is drawn
+ * into a bitmap once and only the bitmap is drawn afterwards, until the year, the entry types
+ * or the size of the view change.</i>
+ */
+public class YearView extends View {
+    /**
+     * Listener for selected months
+     */
+    interface OnMonthClickListener {
+        /**
+         * Called when a month was selected
+         *
+         * @param month Month (1-12)
+         */
+        void onMonthClick(int month);
+    }
+
+    /**
+     * Number of columns and rows of days in a month
+     */
+    private final static int DAY_COLUMNS = 7;
+    private final static int DAY_ROWS = 6;
+
+    /**
+     * Colors indexed by entry type
+     */
+    private final int[] typeColors = new int[DayEntry.FERTILITY_STANDARD_FUTURE + 1];
+    private final int colorBackground;
+    private final Paint paintDay = new Paint();
+    private final Paint paintTitle = new Paint(Paint.ANTI_ALIAS_FLAG);
+    /**
+     * Short month names for the titles and full names for TalkBack
+     */
+    private final String[] monthTitles = new String[12];
+    private final String[] monthDescriptions = new String[12];
+    /**
+     * Space around each month and between the days
+     */
+    private final float padding;
+    private final float gap;
+    /**
+     * Helper for TalkBack and keyboard navigation
+     */
+    private final YearAccessibilityHelper accessibilityHelper;
+
+    /* Year to display */
+    private int year = 0;
+    private byte[] index = null;
+    private int startOfWeek = 0;
+
+    /* Layout of the months */
+    private int columns = 3;
+    private float monthWidth, monthHeight;
+
+    /* Year drawn in advance */
+    private Bitmap bitmap = null;
+    private final Canvas bitmapCanvas = new Canvas();
+    private boolean bitmapValid = false;
+
+    /**
+     * Month which is currently pressed, 0 if none
+     */
+    private int pressedMonth = 0;
+    /**
+     * Listener for selected months
+     */
+    private OnMonthClickListener monthClickListener;
+
+    /**
+     * Constructor
+     *
+     * @param context Application context
+     * @param attrs   Resource attributes
+     */
+    public YearView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+
+        CalendarCellResources resources = AppPeriodical.getCellResources(context);
+        for (int type = 0; type < typeColors.length; type++) {
+            typeColors[type] = getTypeColor(resources, type);
+        }
+        colorBackground = resources.colorBlack;
+
+        float density = context.getResources().getDisplayMetrics().density;
+        padding = 6 * density;
+        gap = density;
+        paintTitle.setColor(resources.colorWhite);
+        paintTitle.setTextSize(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, 14,
+                context.getResources().getDisplayMetrics()));
+
+        DateTimeFormatter titleFormat = DateTimeFormatter.ofPattern("LLL");
+        DateTimeFormatter descriptionFormat = DateTimeFormatter.ofPattern("LLLL");
+        for (int month = 1; month <= 12; month++) {
+            YearMonth yearMonth = YearMonth.of(2000, month);
+            monthTitles[month - 1] = titleFormat.format(yearMonth);
+            monthDescriptions[month - 1] = descriptionFormat.format(yearMonth);
+        }
+
+        setFocusable(true);
+        setClickable(true);
+        accessibilityHelper = new YearAccessibilityHelper(this);
+        ViewCompat.setAccessibilityDelegate(this, accessibilityHelper);
+    }
+
+    /**
+     * Get the color of an entry type
+     *
+     * @param resources Shared drawing resources
+     * @param type      Entry type
+     * @return The color
+     */
+    private static int getTypeColor(CalendarCellResources resources, int type) {
+        switch (type) {
+            case DayEntry.PERIOD_START:
+            case DayEntry.PERIOD_CONFIRMED:
+                return resources.colorPeriodConfirmed;
+            case DayEntry.PERIOD_PREDICTED:
+                return resources.colorPeriodPredicted;
+            case DayEntry.FERTILITY_PREDICTED:
+            case DayEntry.OVULATION_PREDICTED:
+                return resources.colorFertilityPredicted;
+            case DayEntry.FERTILITY_FUTURE:
+            case DayEntry.OVULATION_FUTURE:
+                return resources.colorFertilityFuture;
+            case DayEntry.FERTILITY_STANDARD_PREDICTED:
+                return resources.colorFertilityStandardPredicted;
+            case DayEntry.FERTILITY_STANDARD_FUTURE:
+                return resources.colorFertilityStandardFuture;
+            case DayEntry.INFERTILE_PREDICTED:
+                return resources.colorInfertilePredicted;
+            case DayEntry.INFERTILE_FUTURE:
+                return resources.colorInfertileFuture;
+            default:
+                return resources.colorEmpty;
+        }
+    }
+
+    /**
+     * Set the listener for selected months
+     *
+     * @param listener The listener
+     */
+    void setOnMonthClickListener(OnMonthClickListener listener) {
+        monthClickListener = listener;
+    }
+
+    /**
+     * Set the year to display
+     *
+     * <br><br><i>Nothing is drawn again if the same year is set with the same entry
+     * types.</i>
+     *
+     * @param year        Year
+     * @param index       Entry types indexed by day of year - 1
+     * @param startOfWeek First day of the week (0 = sunday)
+     */
+    void setYear(int year, byte[] index, int startOfWeek) {
+        if (year == this.year && index == this.index && startOfWeek == this.startOfWeek) {
+            return;
+        }
+        this.year = year;
+        this.index = index;
+        this.startOfWeek = startOfWeek;
+        bitmapValid = false;
+
+        invalidate();
+        accessibilityHelper.invalidateRoot();
+    }
+
+    /**
+     * Handle size changes to adapt the layout of the months
+     *
+     * @param w    Current width
+     * @param h    Current height
+     * @param oldw Old width
+     * @param oldh Old height
+     */
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        columns = w > h ? 4 : 3;
+        monthWidth = (float) w / columns;
+        monthHeight = (float) h / (12 / columns);
+
+        bitmap = null;
+        bitmapValid = false;
+    }
+
+    /**
+     * Release the bitmap when the view is not used any longer
+     */
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+
+        bitmap = null;
+        bitmapValid = false;
+    }
+
+    /**
+     * Custom draw
+     *
+     * @param canvas The canvas to draw on
+     */
+    @Override
+    protected void onDraw(@NonNull Canvas canvas) {
+        if (index == null || getWidth() == 0 || getHeight() == 0) {
+            return;
+        }
+
+        if (bitmap == null) {
+            // The background is opaque, so no alpha channel is needed
+            bitmap = Bitmap.createBitmap(getWidth(), getHeight(), Bitmap.Config.RGB_565);
+            bitmapCanvas.setBitmap(bitmap);
+        }
+        if (!bitmapValid) {
+            drawYear(bitmapCanvas);
+            bitmapValid = true;
+        }
+        canvas.drawBitmap(bitmap, 0, 0, null);
+    }
+
+    /**
+     * Draw all months of the year
+     *
+     * @param canvas The canvas to draw on
+     */
+    private void drawYear(Canvas canvas) {
+        canvas.drawColor(colorBackground);
+
+        float titleHeight = paintTitle.getTextSize() * 1.5f;
+        float daySize = Math.min((monthWidth - 2 * padding) / DAY_COLUMNS,
+                (monthHeight - 2 * padding - titleHeight) / DAY_ROWS);
+
+        // Day of week of january 1st, 0 = sunday
+        int weekday = LocalDate.of(year, 1, 1).getDayOfWeek().getValue() % 7;
+        int dayOfYear = 0;
+        for (int month = 0; month < 12; month++) {
+            float left = (month % columns) * monthWidth + padding;
+            float top = (month / columns) * monthHeight + padding;
+            canvas.drawText(monthTitles[month], left, top + paintTitle.getTextSize(), paintTitle);
+            top += titleHeight;
+
+            int daysCount = YearMonth.of(year, month + 1).lengthOfMonth();
+            int position = (weekday - startOfWeek + 7) % 7;
+            for (int day = 0; day < daysCount && dayOfYear < index.length; day++) {
+                float x = left + (position % DAY_COLUMNS) * daySize;
+                float y = top + (position / DAY_COLUMNS) * daySize;
+                paintDay.setColor(typeColors[index[dayOfYear]]);
+                canvas.drawRect(x, y, x + daySize - gap, y + daySize - gap, paintDay);
+                position++;
+                dayOfYear++;
+            }
+            weekday = (weekday + daysCount) % 7;
+        }
+    }
+
+    /**
+     * Handle touch events to select months
+     *
+     * @param event The touch event
+     */
+    @SuppressLint("ClickableViewAccessibility")
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        if (index == null) {
+            return false;
+        }
+
+        int month = getMonthAt(event.getX(), event.getY());
+        switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+                pressedMonth = month;
+                return true;
+            case MotionEvent.ACTION_MOVE:
+                // Moving to another month cancels the selection
+                if (month != pressedMonth) {
+                    pressedMonth = 0;
+                }
+                return true;
+            case MotionEvent.ACTION_UP:
+                if (pressedMonth != 0 && month == pressedMonth) {
+                    playSoundEffect(SoundEffectConstants.CLICK);
+                    performMonthClick(month);
+                }
+                pressedMonth = 0;
+                return true;
+            case MotionEvent.ACTION_CANCEL:
+                pressedMonth = 0;
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Pass hover events to TalkBack
+     *
+     * @param event The hover event
+     */
+    @Override
+    protected boolean dispatchHoverEvent(MotionEvent event) {
+        return accessibilityHelper.dispatchHoverEvent(event) || super.dispatchHoverEvent(event);
+    }
+
+    /**
+     * Get the month at a position in the view
+     *
+     * @param x Horizontal position
+     * @param y Vertical position
+     * @return Month (1-12) or 0 if there is no month at this position
+     */
+    private int getMonthAt(float x, float y) {
+        if (x < 0 || y < 0 || x >= getWidth() || y >= getHeight()) {
+            return 0;
+        }
+        int column = Math.min((int) (x / monthWidth), columns - 1);
+        int row = Math.min((int) (y / monthHeight), 12 / columns - 1);
+        return row * columns + column + 1;
+    }
+
+    /**
+     * Select a month
+     *
+     * @param month Month (1-12)
+     */
+    private void performMonthClick(int month) {
+        if (monthClickListener != null) {
+            monthClickListener.onMonthClick(month);
+        }
+        accessibilityHelper.sendEventForVirtualView(month, AccessibilityEvent.TYPE_VIEW_CLICKED);
+    }
+
+    /**
+     * Virtual views for the months, used by TalkBack
+     */
+    private class YearAccessibilityHelper extends ExploreByTouchHelper {
+        /**
+         * Rectangle to get the bounds of a month
+         */
+        private final Rect bounds = new Rect();
+
+        YearAccessibilityHelper(@NonNull View host) {
+            super(host);
+        }
+
+        @Override
+        protected int getVirtualViewAt(float x, float y) {
+            int month = getMonthAt(x, y);
+            return month != 0 ? month : INVALID_ID;
+        }
+
+        @Override
+        protected void getVisibleVirtualViews(List<Integer> virtualViewIds) {
+            if (index == null) {
+                return;
+            }
+            for (int month = 1; month <= 12; month++) {
+                virtualViewIds.add(month);
+            }
+        }
+
+        @SuppressWarnings("deprecation")
+        @Override
+        protected void onPopulateNodeForVirtualView(int virtualViewId, @NonNull AccessibilityNodeInfoCompat node) {
+            int column = (virtualViewId - 1) % columns;
+            int row = (virtualViewId - 1) / columns;
+            int left = (int) (column * monthWidth);
+            int top = (int) (row * monthHeight);
+            bounds.set(left, top, (int) (left + monthWidth), (int) (top + monthHeight));
+            node.setContentDescription(monthDescriptions[virtualViewId - 1] + " " + year);
+            node.setBoundsInParent(bounds);
+            node.setClickable(true);
+            node.addAction(AccessibilityNodeInfoCompat.ACTION_CLICK);
+        }
+
+        @Override
+        protected boolean onPerformActionForVirtualView(int virtualViewId, int action, @Nullable Bundle arguments) {
+            if (action == AccessibilityNodeInfoCompat.ACTION_CLICK) {
+                performMonthClick(virtualViewId);
+                return true;
+            }
+            return false;
+        }
+    }
+}
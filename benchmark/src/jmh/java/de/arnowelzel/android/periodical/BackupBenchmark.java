@@ -0,0 +1,104 @@
+/*
+ * Periodical backup benchmark class
+ * Copyright (C) 2012-2025 Arno Welzel
+ *
+ * This code is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.arnowelzel.android.periodical;
+
+import com.google.gson.stream.JsonReader;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Benchmarks for reading a backup
+ *
+ * <br><br><i>Only reading the backup is measured, writing the records to the database is
+ * not included. The records are read the same way as the app does when restoring a backup.</i>
+ */
+@State(Scope.Thread)
+public class BackupBenchmark {
+    /**
+     * Backup of the history as written to the backup file
+     */
+    private byte[] backup;
+
+    @Setup(Level.Trial)
+    public void setup(HistoryState history) throws IOException {
+        File file = File.createTempFile("Periodical-backup", ".json.gz");
+        try {
+            history.generator.writeBackup(file);
+            backup = Files.readAllBytes(file.toPath());
+        } finally {
+            //noinspection ResultOfMethodCallIgnored
+            file.delete();
+        }
+    }
+
+    /**
+     * Unpack the backup and read all records
+     *
+     * @return Sum of all epoch days, so the reading can not be optimized away
+     */
+    @Benchmark
+    public long backupParse() throws IOException {
+        long result = 0;
+        try (JsonReader reader = new JsonReader(new InputStreamReader(
+                new GZIPInputStream(new ByteArrayInputStream(backup)), StandardCharsets.UTF_8))) {
+            reader.beginArray();
+            reader.beginObject();
+            reader.nextName();
+            result += reader.nextInt();
+            reader.endObject();
+            while (reader.hasNext()) {
+                reader.beginObject();
+                reader.nextName();
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        String name = reader.nextName();
+                        String value = reader.nextString();
+
+                        // The epoch day is calculated from the date string for each record
+                        if (name.equals("eventdate") && value.length() == 8) {
+                            result += DayStore.epochDay(
+                                    Integer.parseInt(value.substring(0, 4), 10),
+                                    Integer.parseInt(value.substring(4, 6), 10),
+                                    Integer.parseInt(value.substring(6, 8), 10));
+                        }
+                    }
+                    reader.endObject();
+                }
+                reader.endArray();
+                reader.endObject();
+            }
+            reader.endArray();
+        }
+        return result;
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Periodical calculation benchmark class
+ * Copyright (C) 2012-2025 Arno Welzel
+ *
+ * This code is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.arnowelzel.android.periodical;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks for the calculation of the whole history
+ */
+@State(Scope.Thread)
+public class CalculationBenchmark {
+    private CycleCalculator calculator;
+    /**
+     * Calculated entries without any details
+     */
+    private DayStore calculated;
+
+    @Setup(Level.Trial)
+    public void setup(HistoryState history) {
+        calculator = new CycleCalculator();
+        calculator.calculate(history.periodDays, HistoryState.PERIOD_LENGTH,
+                HistoryState.LUTEAL_LENGTH, HistoryState.MAXIMUM_CYCLE_LENGTH);
+        calculated = calculator.getDays().copy();
+    }
+
+    /**
+     * Calculate everything again, like after a restore or changed settings
+     */
+    @Benchmark
+    public int fullRecalculation(HistoryState history) {
+        calculator.calculate(history.periodDays, HistoryState.PERIOD_LENGTH,
+                HistoryState.LUTEAL_LENGTH, HistoryState.MAXIMUM_CYCLE_LENGTH);
+        return calculator.cycleAverage;
+    }
+
+    /**
+     * Calculate the statistics of all cycles in one pass
+     */
+    @Benchmark
+    public CycleStatistics statistics(HistoryState history) {
+        CycleStatistics statistics = new CycleStatistics(HistoryState.MAXIMUM_CYCLE_LENGTH);
+        statistics.add(history.periodDays);
+        return statistics;
+    }
+
+    /**
+     * Copy the calculated entries, the baseline for {@link #detailsMerge}
+     */
+    @Benchmark
+    public DayStore storeCopy() {
+        return calculated.copy();
+    }
+
+    /**
+     * Add symptoms and notes to the calculated entries
+     *
+     * <br><br><i>Every invocation starts with a copy of entries without details, otherwise
+     * only existing details would be overwritten after the first invocation. The time of
+     * {@link #storeCopy} is included.</i>
+     */
+    @Benchmark
+    public DayStore detailsMerge(HistoryState history) {
+        DayStore days = calculated.copy();
+        history.mergeDetails(days);
+        return days;
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Periodical benchmark history state class
+ * Copyright (C) 2012-2025 Arno Welzel
+ *
+ * This code is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.arnowelzel.android.periodical;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Arrays;
+
+/**
+ * Synthetic history shared by the benchmarks
+ *
+ * <br><br><i>The history is generated with a fixed seed, so all runs use the same data.</i>
+ */
+@State(Scope.Benchmark)
+public class HistoryState {
+    /**
+     * Length of the history in years
+     */
+    @Param({"1", "10", "40"})
+    public int years;
+
+    /**
+     * Share of days with symptoms (0-1), notes are added to a fifth as many days
+     */
+    @Param({"0.0", "0.1", "0.5"})
+    public double symptomDensity;
+
+    final static int PERIOD_LENGTH = 4;
+    final static int LUTEAL_LENGTH = 14;
+    final static int MAXIMUM_CYCLE_LENGTH = 183;
+
+    /**
+     * Period starts and confirmed period days
+     */
+    CycleCalculator.PeriodDays periodDays;
+    /**
+     * Days with symptoms and their bitmasks
+     */
+    int[] symptomDays;
+    int[] symptoms;
+    /**
+     * Days with notes and their content
+     */
+    int[] noteDays;
+    String[] notes;
+    /**
+     * First and last day of the history
+     */
+    int firstDay;
+    int lastDay;
+    /**
+     * Generator of the history, to create backups or databases
+     */
+    HistoryGenerator generator;
+    /**
+     * Calculated result for lookups
+     */
+    CalculationSnapshot snapshot;
+    /**
+     * Calculation the snapshots are created from
+     */
+    private CycleCalculator calculator;
+    private DayStore days;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        generator = new HistoryGenerator(1, DayStore.epochDay(2025, 12, 31),
+                years, symptomDensity, symptomDensity / 5);
+        periodDays = generator.getPeriodDays();
+        firstDay = generator.getFirstDay();
+        lastDay = generator.getLastDay();
+
+        int symptomCount = 0;
+        int noteCount = 0;
+        symptomDays = new int[lastDay - firstDay + 1];
+        symptoms = new int[symptomDays.length];
+        noteDays = new int[symptomDays.length];
+        notes = new String[symptomDays.length];
+        for (int day = firstDay; day <= lastDay; day++) {
+            if (generator.getSymptoms(day) != 0) {
+                symptomDays[symptomCount] = day;
+                symptoms[symptomCount] = generator.getSymptoms(day);
+                symptomCount++;
+            }
+            if (generator.getNotes(day) != null) {
+                noteDays[noteCount] = day;
+                notes[noteCount] = generator.getNotes(day);
+                noteCount++;
+            }
+        }
+        symptomDays = Arrays.copyOf(symptomDays, symptomCount);
+        symptoms = Arrays.copyOf(symptoms, symptomCount);
+        noteDays = Arrays.copyOf(noteDays, noteCount);
+        notes = Arrays.copyOf(notes, noteCount);
+
+        calculator = new CycleCalculator();
+        calculator.calculate(periodDays, PERIOD_LENGTH, LUTEAL_LENGTH, MAXIMUM_CYCLE_LENGTH);
+        mergeDetails(calculator.getDays());
+        days = calculator.getDays().copy();
+        snapshot = createSnapshot();
+    }
+
+    /**
+     * Create a new snapshot of the calculated result, so nothing is created on demand yet
+     *
+     * @return The snapshot, sharing the calculated entries with all other snapshots
+     */
+    CalculationSnapshot createSnapshot() {
+        return new CalculationSnapshot(1, Integer.MIN_VALUE,
+                days, calculator.getPrediction(),
+                calculator.cycleCount, calculator.cycleAverage, calculator.cycleLongest,
+                calculator.cycleShortest);
+    }
+
+    /**
+     * Add all symptoms and notes to calculated entries, like the database does
+     *
+     * @param days Calculated entries
+     */
+    void mergeDetails(DayStore days) {
+        for (int index = 0; index < symptomDays.length; index++) {
+            days.putSymptoms(symptomDays[index], symptoms[index]);
+        }
+        for (int index = 0; index < noteDays.length; index++) {
+            days.putNotes(noteDays[index], notes[index]);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Periodical lookup benchmark class
+ * Copyright (C) 2012-2025 Arno Welzel
+ *
+ * This code is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.arnowelzel.android.periodical;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDate;
+import java.util.GregorianCalendar;
+
+/**
+ * Benchmarks for looking up calculated entries
+ */
+@State(Scope.Thread)
+public class LookupBenchmark {
+    /**
+     * Month to look up next, as offset to the first month of the history
+     */
+    private int month = 0;
+    /**
+     * Year to look up next, as offset to the first year of the history
+     */
+    private int year = 0;
+
+    /**
+     * Get the entries for all 42 cells of a month view, like the calendar does
+     */
+    @Benchmark
+    public void monthLookup(HistoryState history, Blackhole blackhole) {
+        GregorianCalendar cal = DayStore.calendar(history.firstDay);
+        cal.add(GregorianCalendar.MONTH, month);
+        month = (month + 1) % (history.years * 12);
+
+        for (int cell = 0; cell < 42; cell++) {
+            blackhole.consume(history.snapshot.getEntry(cal));
+            cal.add(GregorianCalendar.DATE, 1);
+        }
+    }
+
+    /**
+     * Get the entry types of all days of a year one by one
+     */
+    @Benchmark
+    public void yearLookup(HistoryState history, Blackhole blackhole) {
+        int yearLookup = nextYear(history);
+        GregorianCalendar cal = new GregorianCalendar(yearLookup, GregorianCalendar.JANUARY, 1);
+
+        while (cal.get(GregorianCalendar.YEAR) == yearLookup) {
+            blackhole.consume(history.snapshot.getEntryType(cal));
+            cal.add(GregorianCalendar.DATE, 1);
+        }
+    }
+
+    /**
+     * Create the entry types of all days of a year at once, like the year overview does
+     */
+    @Benchmark
+    public void yearIndex(HistoryState history, Blackhole blackhole) {
+        int yearLookup = nextYear(history);
+
+        blackhole.consume(history.createSnapshot().getYearIndex(yearLookup));
+    }
+
+    /**
+     * Get the next year to look up
+     *
+     * @param history History to look up
+     * @return Year
+     */
+    private int nextYear(HistoryState history) {
+        int yearFirst = LocalDate.ofEpochDay(history.firstDay).getYear();
+        int yearLookup = yearFirst + year;
+        year = (year + 1) % history.years;
+        return yearLookup;
+    }
+}
@@ -0,0 +1,416 @@
+/*
+ * Periodical synthetic history generator class
+ * Copyright (C) 2012-2025 Arno Welzel
+ *
+ * This code is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.arnowelzel.android.periodical;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Generator for long synthetic histories
+ *
+ * <br><br><i>The same seed and settings always create the same history, so large fixtures can
+ * be reproduced for benchmarks and migration tests. The history can be written as gzip JSON
+ * backup, which can be restored in the app, or directly as database with the current schema.
+ * </i>
+ */
+class HistoryGenerator {
+    /**
+     * Schema version of the generated database, must match PeriodicalDataOpenHelper
+     */
+    private final static int DATABASE_VERSION = 9;
+    /**
+     * Version of the generated backup, must match PeriodicalDataOpenHelper
+     */
+    private final static int BACKUP_VERSION = 6;
+    /**
+     * Highest symptom which can be selected in the app
+     */
+    private final static int SYMPTOM_LAST = 23;
+
+    /**
+     * Symptoms typical for the different phases of a cycle
+     */
+    private final static int[] SYMPTOMS_PERIOD = {2, 3, 9, 17, 19, 20, 22};
+    private final static int[] SYMPTOMS_OVULATION = {1, 4, 5, 8, 21};
+    private final static int[] SYMPTOMS_PREMENSTRUAL = {6, 11, 12, 14, 16, 22, 23};
+
+    /**
+     * Text fragments for notes
+     */
+    private final static String[] NOTES = {
+            "Slept badly",
+            "Long day at work",
+            "Went running in the evening",
+            "Took ibuprofen",
+            "Visited the doctor, everything is fine",
+            "Travelling",
+            "Stressful week",
+            "Started a new pill pack",
+            "Ate a lot of chocolate",
+            "Felt great today",
+    };
+
+    private final Random random;
+    /**
+     * Epoch day of the first day of the history
+     */
+    private final int firstDay;
+    /**
+     * Values of each day, indexed by (epoch day - first day)
+     */
+    private final byte[] types;
+    private final byte[] intensities;
+    private final int[] symptoms;
+    private final String[] notes;
+
+    /**
+     * Generate a new history
+     *
+     * @param seed           Seed for the random numbers
+     * @param lastDay        Epoch day of the last day of the history
+     * @param years          Length of the history in years
+     * @param symptomDensity Share of days with symptoms (0-1)
+     * @param notesDensity   Share of days with notes (0-1)
+     */
+    HistoryGenerator(long seed, int lastDay, int years, double symptomDensity, double notesDensity) {
+        random = new Random(seed);
+        firstDay = lastDay - years * 365;
+        types = new byte[lastDay - firstDay + 1];
+        intensities = new byte[types.length];
+        symptoms = new int[types.length];
+        notes = new String[types.length];
+
+        // Each history has its own typical cycle and period length
+        int cycleMean = 26 + random.nextInt(6);
+        int periodMean = 4 + random.nextInt(3);
+
+        int start = 0;
+        while (start < types.length) {
+            int cycleLength = (int) Math.round(cycleMean + random.nextGaussian() * 2.5);
+            cycleLength = Math.max(21, Math.min(40, cycleLength));
+            int periodLength = periodMean;
+            if (random.nextInt(5) == 0) {
+                periodLength += random.nextBoolean() ? 1 : -1;
+            }
+
+            // Period days with increasing and then decreasing intensity
+            int intensity = 2 + random.nextInt(2);
+            for (int day = 0; day < periodLength && start + day < types.length; day++) {
+                types[start + day] = (byte) (day == 0 ? DayEntry.PERIOD_START : DayEntry.PERIOD_CONFIRMED);
+                intensities[start + day] = (byte) intensity;
+                if (day == 0) {
+                    intensity = Math.min(4, intensity + 1);
+                } else {
+                    intensity = Math.max(1, intensity - random.nextInt(2));
+                }
+            }
+
+            // Symptoms and notes depending on the phase of the cycle
+            for (int day = 0; day < cycleLength && start + day < types.length; day++) {
+                int index = start + day;
+                if (random.nextDouble() < symptomDensity) {
+                    int[] typical;
+                    if (day < periodLength) {
+                        typical = SYMPTOMS_PERIOD;
+                    } else if (Math.abs(day - (cycleLength - 14)) <= 2) {
+                        typical = SYMPTOMS_OVULATION;
+                    } else if (day >= cycleLength - 5) {
+                        typical = SYMPTOMS_PREMENSTRUAL;
+                    } else {
+                        typical = null;
+                    }
+                    int count = 1 + random.nextInt(3);
+                    for (int n = 0; n < count; n++) {
+                        int symptom = typical != null && random.nextInt(4) != 0
+                                ? typical[random.nextInt(typical.length)]
+                                : 1 + random.nextInt(SYMPTOM_LAST);
+                        symptoms[index] |= 1 << symptom;
+                    }
+                }
+                if (random.nextDouble() < notesDensity) {
+                    StringBuilder text = new StringBuilder(NOTES[random.nextInt(NOTES.length)]);
+                    if (random.nextInt(4) == 0) {
+                        text.append('\n').append(NOTES[random.nextInt(NOTES.length)]);
+                    }
+                    notes[index] = text.toString();
+                }
+            }
+
+            start += cycleLength;
+
+            // Sometimes there is a longer pause, e.g. because of a pregnancy
+            if (random.nextInt(100) == 0) {
+                start += 200 + random.nextInt(200);
+            }
+        }
+    }
+
+    /**
+     * Get epoch day of the first day of the history
+     */
+    int getFirstDay() {
+        return firstDay;
+    }
+
+    /**
+     * Get epoch day of the last day of the history
+     */
+    int getLastDay() {
+        return firstDay + types.length - 1;
+    }
+
+    /**
+     * Get symptoms of a day as bitmask
+     *
+     * @param eventday Day as number of days since 1970-01-01
+     */
+    int getSymptoms(int eventday) {
+        return symptoms[eventday - firstDay];
+    }
+
+    /**
+     * Get notes of a day
+     *
+     * @param eventday Day as number of days since 1970-01-01
+     * @return The notes or null if there are no notes for this day
+     */
+    String getNotes(int eventday) {
+        return notes[eventday - firstDay];
+    }
+
+    /**
+     * Get all period days as input for the calculation
+     */
+    CycleCalculator.PeriodDays getPeriodDays() {
+        CycleCalculator.PeriodDays days = new CycleCalculator.PeriodDays();
+        for (int index = 0; index < types.length; index++) {
+            if (types[index] != DayEntry.EMPTY) {
+                days.add(firstDay + index, types[index], intensities[index]);
+            }
+        }
+        return days;
+    }
+
+    /**
+     * Check if a day needs a record in the data table
+     *
+     * @param index Index of the day
+     */
+    private boolean hasData(int index) {
+        return types[index] != DayEntry.EMPTY || symptoms[index] != 0 || notes[index] != null;
+    }
+
+    /**
+     * Get date string as used in the "eventdate" columns
+     *
+     * @param index Index of the day
+     */
+    private String eventDate(int index) {
+        LocalDate date = LocalDate.ofEpochDay(firstDay + index);
+        return String.format(Locale.ENGLISH, "%04d%02d%02d",
+                date.getYear(), date.getMonthValue(), date.getDayOfMonth());
+    }
+
+    /**
+     * Write the history as gzip JSON backup in the format used by the app
+     *
+     * @param file File to be written
+     */
+    void writeBackup(File file) throws IOException {
+        try (OutputStream out = new GZIPOutputStream(new FileOutputStream(file));
+             Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8)) {
+            writer.write("[{\"version\":" + BACKUP_VERSION + "}");
+
+            writer.write(",{\"data\":[");
+            boolean first = true;
+            for (int index = 0; index < types.length; index++) {
+                if (hasData(index)) {
+                    if (!first) writer.write(',');
+                    first = false;
+                    writer.write("{\"eventtype\":\"" + types[index] + "\"" +
+                            ",\"eventdate\":\"" + eventDate(index) + "\"" +
+                            ",\"eventcvx\":\"\",\"eventtemp\":\"\"" +
+                            ",\"intensity\":\"" + (types[index] != DayEntry.EMPTY ? intensities[index] : "") + "\"}");
+                }
+            }
+
+            writer.write("]},{\"options\":[");
+            writer.write("{\"name\":\"period_length\",\"value\":\"4\"}" +
+                    ",{\"name\":\"luteal_length\",\"value\":\"14\"}" +
+                    ",{\"name\":\"startofweek\",\"value\":\"0\"}" +
+                    ",{\"name\":\"maximum_cycle_length\",\"value\":\"183\"}" +
+                    ",{\"name\":\"direct_details\",\"value\":\"0\"}" +
+                    ",{\"name\":\"show_cycle\",\"value\":\"1\"}");
+
+            writer.write("]},{\"notes\":[");
+            first = true;
+            for (int index = 0; index < types.length; index++) {
+                if (notes[index] != null) {
+                    if (!first) writer.write(',');
+                    first = false;
+                    writer.write("{\"eventdate\":\"" + eventDate(index) + "\"" +
+                            ",\"content\":\"" + escape(notes[index]) + "\"}");
+                }
+            }
+
+            // One record per symptom, as expected by the app
+            writer.write("]},{\"symptoms\":[");
+            first = true;
+            for (int index = 0; index < types.length; index++) {
+                for (int symptom = 1; symptom <= DayEntry.SYMPTOM_MAX; symptom++) {
+                    if ((symptoms[index] & (1 << symptom)) != 0) {
+                        if (!first) writer.write(',');
+                        first = false;
+                        writer.write("{\"eventdate\":\"" + eventDate(index) + "\"" +
+                                ",\"symptom\":\"" + symptom + "\"}");
+                    }
+                }
+            }
+            writer.write("]}]");
+        }
+    }
+
+    /**
+     * Escape a string for JSON output
+     *
+     * @param value String to be escaped
+     */
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    /**
+     * Write the history as database with the current schema of the app
+     *
+     * @param file Database file to be created, an existing file will be replaced
+     */
+    void writeDatabase(File file) throws IOException, SQLException {
+        if (file.exists() && !file.delete()) {
+            throw new IOException("Unable to replace " + file);
+        }
+
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file.getPath())) {
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("create table data (" +
+                        "eventtype integer(3), " +
+                        "eventdate varchar(8), " +
+                        "eventcvx integer(3), " +
+                        "eventtemp real, " +
+                        "intensity integer(3), " +
+                        "eventday integer, " +
+                        "symptoms integer not null default 0" +
+                        ")");
+                statement.execute("create table options (" +
+                        "name varchar(100), " +
+                        "value varchar(500)" +
+                        ")");
+                statement.execute("create table notes (" +
+                        "eventdate varchar(8), " +
+                        "content text, " +
+                        "eventday integer" +
+                        ")");
+                statement.execute("create unique index data_eventday on data (eventday)");
+                statement.execute("create index notes_eventday on notes (eventday)");
+                statement.execute("insert into options (name, value) values " +
+                        "('period_length', '4'), ('luteal_length', '14'), ('startofweek', '0'), " +
+                        "('maximum_cycle_length', '183'), ('direct_details', '0'), ('show_cycle', '1')");
+                statement.execute("pragma user_version = " + DATABASE_VERSION);
+            }
+
+            try (PreparedStatement insertData = connection.prepareStatement(
+                    "insert into data (eventtype, eventdate, intensity, eventday, symptoms) values (?, ?, ?, ?, ?)");
+                 PreparedStatement insertNotes = connection.prepareStatement(
+                         "insert into notes (eventdate, content, eventday) values (?, ?, ?)")) {
+                for (int index = 0; index < types.length; index++) {
+                    if (hasData(index)) {
+                        insertData.setInt(1, types[index]);
+                        insertData.setString(2, eventDate(index));
+                        if (types[index] != DayEntry.EMPTY) {
+                            insertData.setInt(3, intensities[index]);
+                        } else {
+                            insertData.setNull(3, Types.INTEGER);
+                        }
+                        insertData.setInt(4, firstDay + index);
+                        insertData.setInt(5, symptoms[index]);
+                        insertData.addBatch();
+                    }
+                    if (notes[index] != null) {
+                        insertNotes.setString(1, eventDate(index));
+                        insertNotes.setString(2, notes[index]);
+                        insertNotes.setInt(3, firstDay + index);
+                        insertNotes.addBatch();
+                    }
+                }
+                insertData.executeBatch();
+                insertNotes.executeBatch();
+            }
+            connection.commit();
+        }
+    }
+
+    /**
+     * Generate a history from the command line
+     *
+     * <br><br><i>Usage: HistoryGenerator output [years] [seed] [symptom density] [notes density]
+     * <br>If the output ends with ".db" a database is created, otherwise a gzip JSON backup.
+     * </i>
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: HistoryGenerator output [years] [seed] [symptom density] [notes density]");
+            System.exit(1);
+        }
+        File output = new File(args[0]);
+        int years = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 1;
+        double symptomDensity = args.length > 3 ? Double.parseDouble(args[3]) : 0.3;
+        double notesDensity = args.length > 4 ? Double.parseDouble(args[4]) : 0.05;
+
+        // The history always ends at the same day, so the output does not depend on the date
+        int lastDay = (int) LocalDate.of(2025, 12, 31).toEpochDay();
+        HistoryGenerator generator = new HistoryGenerator(seed, lastDay, years, symptomDensity, notesDensity);
+
+        File directory = output.getAbsoluteFile().getParentFile();
+        if (directory != null && !directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Unable to create " + directory);
+        }
+        if (output.getName().endsWith(".db")) {
+            generator.writeDatabase(output);
+        } else {
+            generator.writeBackup(output);
+        }
+        System.out.println("Created " + output);
+    }
+}
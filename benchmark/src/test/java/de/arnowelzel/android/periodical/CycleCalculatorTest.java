@@ -0,0 +1,200 @@
+/*
+ * Periodical cycle calculator test class
+ * Copyright (C) 2012-2025 Arno Welzel
+ *
+ * This code is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.arnowelzel.android.periodical;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the incremental calculation
+ *
+ * <br><br><i>Synthetic histories are changed randomly, like a user would do in the calendar.
+ * After every change the result of update() must be the same as calculating everything
+ * again.</i>
+ */
+public class CycleCalculatorTest {
+    private final static int PERIOD_LENGTH = 4;
+    private final static int LUTEAL_LENGTH = 14;
+    private final static int MAXIMUM_CYCLE_LENGTH = 183;
+
+    /**
+     * Number of histories to test
+     */
+    private final static int HISTORIES = 20;
+    /**
+     * Number of changes per history
+     */
+    private final static int CHANGES = 50;
+    /**
+     * Number of days after the history which are compared, to include the predictions
+     */
+    private final static int DAYS_PREDICTED = 400;
+
+    @Test
+    public void updateMatchesCalculate() {
+        for (int seed = 1; seed <= HISTORIES; seed++) {
+            Random random = new Random(seed);
+            HistoryGenerator generator = new HistoryGenerator(seed, DayStore.epochDay(2025, 12, 31),
+                    1 + random.nextInt(5), 0, 0);
+            int firstDay = generator.getFirstDay();
+            int lastDay = generator.getLastDay();
+
+            // Period days with type and intensity, indexed by day
+            TreeMap<Integer, int[]> periodDays = new TreeMap<>();
+            CycleCalculator.PeriodDays days = generator.getPeriodDays();
+            for (int index = 0; index < days.size(); index++) {
+                periodDays.put(days.getEventday(index), new int[]{days.getType(index), 2});
+            }
+
+            CycleCalculator incremental = new CycleCalculator();
+            incremental.calculate(toPeriodDays(periodDays),
+                    PERIOD_LENGTH, LUTEAL_LENGTH, MAXIMUM_CYCLE_LENGTH);
+
+            for (int change = 0; change < CHANGES; change++) {
+                int eventday = change(random, periodDays, firstDay, lastDay);
+
+                CycleCalculator.PeriodDays source = toPeriodDays(periodDays);
+                incremental.update(source, eventday,
+                        PERIOD_LENGTH, LUTEAL_LENGTH, MAXIMUM_CYCLE_LENGTH);
+                CycleCalculator full = new CycleCalculator();
+                full.calculate(source, PERIOD_LENGTH, LUTEAL_LENGTH, MAXIMUM_CYCLE_LENGTH);
+
+                String message = "seed " + seed + ", change " + change + ", day " + eventday;
+                assertSameResult(message, full, incremental, firstDay, lastDay + DAYS_PREDICTED);
+            }
+        }
+    }
+
+    /**
+     * Change the period days randomly
+     *
+     * @param random     Random numbers to use
+     * @param periodDays Period days to change
+     * @param firstDay   First day of the history
+     * @param lastDay    Last day of the history
+     * @return First day which was changed
+     */
+    private static int change(Random random, TreeMap<Integer, int[]> periodDays, int firstDay, int lastDay) {
+        int eventday = firstDay + random.nextInt(lastDay - firstDay + 1);
+        switch (random.nextInt(4)) {
+            case 0:
+                // Add a new period
+                for (int day = 0; day < PERIOD_LENGTH; day++) {
+                    periodDays.putIfAbsent(eventday + day, new int[]{
+                            day == 0 ? DayEntry.PERIOD_START : DayEntry.PERIOD_CONFIRMED, 2});
+                }
+                return eventday;
+            case 1:
+                // Remove a whole period
+                Map.Entry<Integer, int[]> start = periodDays.floorEntry(eventday);
+                if (start == null) {
+                    return eventday;
+                }
+                eventday = start.getKey();
+                int day = eventday;
+                while (periodDays.remove(day) != null) {
+                    day++;
+                }
+                return eventday;
+            case 2:
+                // Remove a single day
+                Integer existing = periodDays.ceilingKey(eventday);
+                if (existing == null) {
+                    return eventday;
+                }
+                periodDays.remove(existing);
+                return existing;
+            default:
+                // Change a confirmed day to a period start or the other way round
+                Map.Entry<Integer, int[]> entry = periodDays.ceilingEntry(eventday);
+                if (entry == null) {
+                    return eventday;
+                }
+                entry.getValue()[0] = entry.getValue()[0] == DayEntry.PERIOD_START
+                        ? DayEntry.PERIOD_CONFIRMED : DayEntry.PERIOD_START;
+                return entry.getKey();
+        }
+    }
+
+    /**
+     * Create the source for the calculation from the period days
+     *
+     * @param periodDays Period days with type and intensity, indexed by day
+     */
+    private static CycleCalculator.PeriodDays toPeriodDays(TreeMap<Integer, int[]> periodDays) {
+        CycleCalculator.PeriodDays days = new CycleCalculator.PeriodDays();
+        for (Map.Entry<Integer, int[]> entry : periodDays.entrySet()) {
+            days.add(entry.getKey(), entry.getValue()[0], entry.getValue()[1]);
+        }
+        return days;
+    }
+
+    /**
+     * Compare the results of two calculations day by day
+     *
+     * @param message  Message for failed assertions
+     * @param expected Result of the full calculation
+     * @param actual   Result of the incremental calculation
+     * @param firstDay First day to compare
+     * @param lastDay  Last day to compare
+     */
+    private static void assertSameResult(String message, CycleCalculator expected, CycleCalculator actual,
+                                         int firstDay, int lastDay) {
+        assertEquals(message, expected.cycleCount, actual.cycleCount);
+        assertEquals(message, expected.cycleAverage, actual.cycleAverage);
+        assertEquals(message, expected.cycleLongest, actual.cycleLongest);
+        assertEquals(message, expected.cycleShortest, actual.cycleShortest);
+
+        ArrayList<String> differences = new ArrayList<>();
+        for (int day = firstDay; day <= lastDay; day++) {
+            DayEntry entryExpected = expected.getPrediction().getEntry(expected.getDays(), day);
+            DayEntry entryActual = actual.getPrediction().getEntry(actual.getDays(), day);
+            if (entryExpected == null || entryActual == null) {
+                if (entryExpected != entryActual) {
+                    differences.add(day + ": " + describe(entryExpected) + " != " + describe(entryActual));
+                }
+            } else if (entryExpected.type != entryActual.type
+                    || entryExpected.dayofcycle != entryActual.dayofcycle
+                    || entryExpected.intensity != entryActual.intensity) {
+                differences.add(day + ": " + describe(entryExpected) + " != " + describe(entryActual));
+            }
+        }
+        assertTrue(message + ", different days " + differences, differences.isEmpty());
+    }
+
+    /**
+     * Describe an entry for failed assertions
+     *
+     * @param entry The entry or null
+     */
+    private static String describe(DayEntry entry) {
+        if (entry == null) {
+            return "none";
+        }
+        return "type " + entry.type + ", day of cycle " + entry.dayofcycle
+                + ", intensity " + entry.intensity;
+    }
+}